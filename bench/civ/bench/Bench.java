@@ -0,0 +1,95 @@
+package civ.bench;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A small stand-in for JMH, so the benchmarks need nothing beyond the standard library. Each
+ * benchmark is warmed up for WARMUP_ITERATIONS, then timed for MEASURE_ITERATIONS iterations of
+ * roughly ITERATION_NANOS each. The value returned by every operation is folded into a sink, so
+ * the JIT cannot drop the work.
+ */
+public class Bench {
+  @FunctionalInterface
+  public interface Operation {
+    long run();
+  }
+
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int MEASURE_ITERATIONS = 10;
+  private static final long ITERATION_NANOS = 200_000_000L;
+  private static final long BATCH_NANOS = 1_000_000L;
+
+  private final List<String> results = new ArrayList<>();
+  private final String filter;
+  private final PrintStream log;
+
+  private long sink;
+  private int batch;
+
+  public Bench(String filter, PrintStream log) {
+    this.filter = filter;
+    this.log = log;
+  }
+
+  public void run(String name, String params, Operation op) {
+    String id = params.isEmpty() ? name : name + "(" + params + ")";
+    if (filter != null && !id.contains(filter))
+      return;
+
+    batch = 1;
+    for (int i = 0; i < WARMUP_ITERATIONS; i++)
+      iteration(op);
+
+    double[] nsPerOp = new double[MEASURE_ITERATIONS];
+    for (int i = 0; i < MEASURE_ITERATIONS; i++)
+      nsPerOp[i] = iteration(op);
+
+    double mean = 0;
+    double min = Double.MAX_VALUE;
+    for (double v : nsPerOp) {
+      mean += v;
+      min = Math.min(min, v);
+    }
+    mean /= nsPerOp.length;
+
+    double variance = 0;
+    for (double v : nsPerOp)
+      variance += (v - mean) * (v - mean);
+    double stdev = Math.sqrt(variance / (nsPerOp.length - 1));
+
+    log.printf("%-48s %14.1f ns/op  +- %10.1f  (min %.1f)%n", id, mean, stdev, min);
+    results.add(String.format(
+        "  {\"benchmark\": \"%s\", \"params\": \"%s\", \"mode\": \"avgt\", \"unit\": \"ns/op\", "
+            + "\"score\": %.3f, \"stdev\": %.3f, \"min\": %.3f, \"iterations\": %d}",
+        name, params, mean, stdev, min, MEASURE_ITERATIONS));
+  }
+
+  // Runs the operation in batches so reading the clock does not dominate very short operations
+  private double iteration(Operation op) {
+    long ops = 0;
+    long start = System.nanoTime();
+    long elapsed;
+    do {
+      long batchStart = System.nanoTime();
+      for (int i = 0; i < batch; i++)
+        sink += op.run();
+      ops += batch;
+
+      long now = System.nanoTime();
+      if (now - batchStart < BATCH_NANOS && batch < (1 << 30))
+        batch <<= 1;
+      elapsed = now - start;
+    } while (elapsed < ITERATION_NANOS);
+    return (double) elapsed / ops;
+  }
+
+  public String toJson() {
+    return "[\n" + String.join(",\n", results) + "\n]\n";
+  }
+
+  public long getSink() {
+    return sink;
+  }
+}
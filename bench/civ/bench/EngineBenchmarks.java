@@ -0,0 +1,464 @@
+package civ.bench;
+
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import civ.core.Simulation;
+import civ.core.ai.AStar;
+import civ.core.ai.FlowField;
+import civ.core.ai.HierarchicalPathfinder;
+import civ.core.ai.MovementRange;
+import civ.core.ai.Pathfinding;
+import civ.core.ai.SearchTree;
+import civ.core.data.Layout;
+import civ.core.data.Point;
+import civ.core.data.hex.Hex;
+import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+import civ.core.display.TerrainCache;
+import civ.core.instance.IData;
+import civ.core.map.civilization.America;
+import civ.core.map.civilization.BaseCivilization;
+import civ.core.map.generation.GenerationSettings;
+import civ.core.map.generation.Noise;
+import civ.core.map.generation.NoiseCache;
+import civ.core.map.generation.TerrainGeneration;
+import civ.core.map.improvement.TradingPost;
+import civ.core.map.terrain.Feature;
+import civ.core.map.terrain.YieldType;
+import civ.core.unit.Unit;
+import civ.core.unit.Warrior;
+
+/*
+ * Benchmarks for the engine's hot paths. Run with ./run-bench.sh [-o results.json] [filter], where
+ * filter keeps only the benchmarks whose name contains it. Scores are in nanoseconds per operation
+ * and written as JSON, so runs from two builds can be diffed.
+ */
+public class EngineBenchmarks {
+  private static final long SEED = 42L;
+  private static final int[][] MAP_SIZES = {{40, 25}, {100, 60}, {200, 120}};
+  private static final double[] OBSTACLE_DENSITIES = {0.0, 0.15, 0.3};
+  private static final int[] HEX_RADII = {16, 32, 64, 128};
+  private static final int PATH_QUERIES = 256;
+  private static final int[][] LARGE_MAP_SIZES = {{100, 100}, {200, 120}, {400, 240}};
+
+  public static void main(String[] args) throws FileNotFoundException {
+    String output = null;
+    String filter = null;
+    for (int i = 0; i < args.length; i++) {
+      if ("-o".equals(args[i]) && i + 1 < args.length)
+        output = args[++i];
+      else
+        filter = args[i];
+    }
+
+    Bench bench = new Bench(filter, System.err);
+
+    hexMap(bench);
+    chunkedMap(bench);
+    aStar(bench);
+    hierarchical(bench);
+    flowField(bench);
+    searchTree(bench);
+    movementRange(bench);
+    layout(bench);
+    terrainCache(bench);
+    terrainGeneration(bench);
+    noise(bench);
+    yields(bench);
+    nextTurn(bench);
+
+    if (output == null) {
+      System.out.print(bench.toJson());
+    } else {
+      try (PrintWriter out = new PrintWriter(output)) {
+        out.print(bench.toJson());
+      }
+    }
+    System.err.println("sink " + bench.getSink());
+  }
+
+  private static HexMap populatedMap(int width, int height) {
+    HexMap map = new HexMap(new GenerationSettings(width, height).setSeed(SEED));
+    map.populateMap();
+    return map;
+  }
+
+  // A generated map with mountains added on the given share of its passable tiles
+  private static HexMap obstacleMap(int width, int height, double density) {
+    HexMap map = populatedMap(width, height);
+    Random rnd = new Random(SEED);
+    for (int i = 0; i < map.getTileCount(); i++) {
+      Hex h = map.getHex(i);
+      if (rnd.nextDouble() < density && h.isPassable())
+        h.addFeature(Feature.MOUNTAINS);
+    }
+    return map;
+  }
+
+  private static void hexMap(Bench bench) {
+    HexMap map = populatedMap(200, 120);
+    int tiles = map.getTileCount();
+    HexCoordinate[] coords = new HexCoordinate[tiles];
+    for (int i = 0; i < tiles; i++)
+      coords[i] = new HexCoordinate(map.qOf(i), map.rOf(i));
+
+    int[] next = {0};
+    bench.run("HexMap.getHex", "coordinate", () -> {
+      int i = next[0]++ % tiles;
+      return map.getHex(coords[i]).q;
+    });
+    bench.run("HexMap.getHex", "index", () -> {
+      int i = next[0]++ % tiles;
+      return map.getHex(i).r;
+    });
+  }
+
+  /*
+   * Reads confined to the top left REGION x REGION tiles of a 4096x4096 map generated on demand,
+   * as a game showing one part of a huge map would make. Afterwards only the chunks under that
+   * region may have been generated.
+   */
+  private static void chunkedMap(Bench bench) {
+    final int size = 4096;
+    final int region = 256;
+    HexMap map =
+        new HexMap(new GenerationSettings(size, size).setSeed(SEED), HexMap.Storage.CHUNKED);
+    map.populateMap();
+
+    Random rnd = new Random(SEED);
+    int[] index = new int[PATH_QUERIES * 16];
+    for (int i = 0; i < index.length; i++)
+      index[i] = rnd.nextInt(region) * size + rnd.nextInt(region);
+
+    int[] next = {0};
+    bench.run("HexMap.getHex", size + "x" + size + ",chunked,region=" + region, () -> {
+      Hex h = map.getHex(index[next[0]++ % index.length]);
+      return h.getYieldTotal(YieldType.FOOD);
+    });
+
+    if (next[0] > 0 && map.getGeneratedTileCount() != region * region)
+      throw new IllegalStateException("Reading " + region + "x" + region + " tiles generated "
+          + map.getGeneratedTileCount() + " tiles of the map");
+  }
+
+  private static void aStar(Bench bench) {
+    for (int[] size : MAP_SIZES) {
+      for (double density : OBSTACLE_DENSITIES) {
+        HexMap map = obstacleMap(size[0], size[1], density);
+        Random rnd = new Random(SEED);
+
+        HexCoordinate[] from = new HexCoordinate[PATH_QUERIES];
+        HexCoordinate[] to = new HexCoordinate[PATH_QUERIES];
+        for (int i = 0; i < PATH_QUERIES; i++) {
+          from[i] = map.getCoordinate(rnd.nextInt(map.getTileCount()));
+          to[i] = map.getCoordinate(rnd.nextInt(map.getTileCount()));
+        }
+
+        AStar aStar = new AStar();
+        int[] next = {0};
+        bench.run("AStar.aStar", size[0] + "x" + size[1] + ",obstacles=" + density, () -> {
+          int i = next[0]++ % PATH_QUERIES;
+          return aStar.aStar(map, from[i], to[i]).size();
+        });
+      }
+    }
+  }
+
+  /*
+   * Long paths, more than a cluster apart, on maps of 10k tiles and up with 15% obstacles. The
+   * same queries go through Pathfinding.findPath, which uses the cluster graph, and a plain A*.
+   */
+  private static void hierarchical(Bench bench) {
+    for (int[] size : LARGE_MAP_SIZES) {
+      HexMap map = obstacleMap(size[0], size[1], 0.15);
+      Random rnd = new Random(SEED);
+
+      HexCoordinate[] from = new HexCoordinate[PATH_QUERIES];
+      HexCoordinate[] to = new HexCoordinate[PATH_QUERIES];
+      for (int i = 0; i < PATH_QUERIES; i++) {
+        int a;
+        int b;
+        do {
+          a = rnd.nextInt(map.getTileCount());
+          b = rnd.nextInt(map.getTileCount());
+        } while (map.distance(a, b) <= HierarchicalPathfinder.CLUSTER_SIZE);
+        from[i] = map.getCoordinate(a);
+        to[i] = map.getCoordinate(b);
+      }
+
+      String params = size[0] + "x" + size[1] + ",tiles=" + map.getTileCount();
+      Pathfinding pf = new Pathfinding();
+      int[] next = {0};
+      bench.run("Pathfinding.findPath", params, () -> {
+        int i = next[0]++ % PATH_QUERIES;
+        return pf.findPath(map, from[i], to[i]).size();
+      });
+
+      AStar aStar = new AStar();
+      bench.run("AStar.aStar", params + ",long", () -> {
+        int i = next[0]++ % PATH_QUERIES;
+        return aStar.aStar(map, from[i], to[i]).size();
+      });
+    }
+  }
+
+  /*
+   * UNITS units all heading for one target, as in Simulation -march: one flow field built for the
+   * target, against a search per unit. Targets are cycled past the cache's size, so every field is
+   * built from scratch.
+   */
+  private static void flowField(Bench bench) {
+    final int units = 64;
+    final int targets = 64;
+    HexMap map = obstacleMap(200, 120, 0.15);
+    Random rnd = new Random(SEED);
+
+    int[] start = new int[units];
+    for (int i = 0; i < units; i++)
+      start[i] = rnd.nextInt(map.getTileCount());
+    HexCoordinate[] target = new HexCoordinate[targets];
+    for (int i = 0; i < targets; i++)
+      target[i] = map.getCoordinate(rnd.nextInt(map.getTileCount()));
+
+    Pathfinding pf = new Pathfinding();
+    int[] next = {0};
+    bench.run("Pathfinding.getFlowField", "200x120,units=" + units, () -> {
+      FlowField field = pf.getFlowField(map, target[next[0]++ % targets]);
+      long steps = 0;
+      for (int s : start)
+        steps += field.getCost(s) != FlowField.UNREACHABLE ? field.nextTile(s) : 0;
+      return steps;
+    });
+
+    AStar aStar = new AStar();
+    bench.run("AStar.aStar", "200x120,units=" + units + ",sameTarget", () -> {
+      HexCoordinate to = target[next[0]++ % targets];
+      long steps = 0;
+      for (int s : start)
+        steps += aStar.aStar(map, map.getCoordinate(s), to).size();
+      return steps;
+    });
+  }
+
+  /*
+   * The tree a unit's moves are read from: built once per origin, then walked for each target the
+   * cursor hovers over.
+   */
+  private static void searchTree(Bench bench) {
+    for (int[] size : MAP_SIZES) {
+      HexMap map = obstacleMap(size[0], size[1], 0.15);
+      Random rnd = new Random(SEED);
+      int[] origin = new int[PATH_QUERIES];
+      int[] target = new int[PATH_QUERIES];
+      for (int i = 0; i < PATH_QUERIES; i++) {
+        origin[i] = rnd.nextInt(map.getTileCount());
+        target[i] = rnd.nextInt(map.getTileCount());
+      }
+
+      SearchTree tree = new SearchTree();
+      int[] next = {0};
+      bench.run("SearchTree.build", size[0] + "x" + size[1], () -> {
+        int i = next[0]++ % PATH_QUERIES;
+        tree.build(map, null, origin[i]);
+        return tree.reaches(target[i]) ? 1 : 0;
+      });
+
+      tree.build(map, null, origin[0]);
+      bench.run("SearchTree.pathTo", size[0] + "x" + size[1], () -> {
+        return tree.pathTo(target[next[0]++ % PATH_QUERIES]).size();
+      });
+    }
+  }
+
+  // A warrior's reachable hexes, from a different passable hex each time
+  private static void movementRange(Bench bench) {
+    for (int[] size : MAP_SIZES) {
+      HexMap map = obstacleMap(size[0], size[1], 0.15);
+      Random rnd = new Random(SEED);
+      HexCoordinate[] origin = new HexCoordinate[PATH_QUERIES];
+      for (int i = 0; i < PATH_QUERIES; i++) {
+        Hex h;
+        do {
+          h = map.getHex(rnd.nextInt(map.getTileCount()));
+        } while (!h.isPassable());
+        origin[i] = map.getCoordinate(map.indexOf(h));
+      }
+
+      Unit unit = new Warrior(new America(), origin[0], true);
+      MovementRange range = new MovementRange();
+      int[] next = {0};
+      bench.run("MovementRange.build", size[0] + "x" + size[1], () -> {
+        unit.setPosition(origin[next[0]++ % PATH_QUERIES]);
+        range.build(map, unit);
+        return range.getReachableCount();
+      });
+    }
+  }
+
+  private static void layout(Bench bench) {
+    for (int radius : HEX_RADII) {
+      Layout layout = new Layout(Layout.POINTY_TOP, new Point(radius, radius),
+          new Point(radius, radius));
+      HexCoordinate h = new HexCoordinate(12, 7);
+      Polygon poly = new Polygon();
+      double[] x = {0};
+
+      bench.run("Layout.pixelToHex", "radius=" + radius, () -> {
+        x[0] = (x[0] + 7.3) % 4000;
+        return layout.pixelToHex(new Point(x[0], x[0] * 0.5)).q;
+      });
+      bench.run("Layout.polygonCorners", "radius=" + radius,
+          () -> (long) layout.polygonCorners(h)[3].x);
+      bench.run("Layout.polygon", "radius=" + radius, () -> {
+        layout.polygon(h, 5, 7, poly);
+        return poly.xpoints[3];
+      });
+    }
+  }
+
+  /*
+   * Drawing a 1280x720 view of the landscape while scrolling across the map, with every chunk
+   * already drawn, and with one tile edited before each draw so its chunk is redrawn.
+   */
+  private static void terrainCache(Bench bench) {
+    HexMap map = populatedMap(200, 120);
+    Layout layout = new Layout(Layout.POINTY_TOP, new Point(32, 32), new Point(32, 32));
+    TerrainCache terrain = new TerrainCache(map, layout);
+    BufferedImage view = new BufferedImage(1280, 720, BufferedImage.TYPE_INT_ARGB_PRE);
+    Graphics2D g = view.createGraphics();
+
+    // Every chunk is drawn once up front, so only the blits and redraws are timed
+    Point corner = layout.hexToPixel(map.getCoordinate(map.getTileCount() - 1));
+    int mapWidth = (int) corner.x;
+    int mapHeight = (int) corner.y;
+    for (int y = 0; y < mapHeight; y += 720)
+      for (int x = 0; x < mapWidth; x += 1280)
+        terrain.draw(g, -x, -y, 1280, 720);
+
+    int[] next = {0};
+    bench.run("TerrainCache.draw", "200x120,view=1280x720", () -> {
+      int step = next[0]++;
+      terrain.draw(g, -(step * 7 % (mapWidth - 1280)), -(step * 3 % (mapHeight - 720)), 1280, 720);
+      return step;
+    });
+
+    Random rnd = new Random(SEED);
+    bench.run("TerrainCache.draw", "200x120,view=1280x720,edited", () -> {
+      // A tile inside the view's top left chunks, so the redrawn chunk is always on screen
+      Hex h = map.getHex(rnd.nextInt(16) * map.getMapWidth() + rnd.nextInt(16));
+      if (h.getFeatures().contains(Feature.WOODS))
+        h.removeFeature(Feature.WOODS);
+      else
+        h.addFeature(Feature.WOODS);
+      terrain.draw(g, 0, 0, 1280, 720);
+      return map.getRevision();
+    });
+  }
+
+  private static void terrainGeneration(Bench bench) {
+    for (int[] size : MAP_SIZES) {
+      TerrainGeneration tg =
+          new TerrainGeneration(new GenerationSettings(size[0], size[1]).setSeed(SEED));
+      bench.run("TerrainGeneration.generateMap", size[0] + "x" + size[1],
+          () -> tg.generateMap().length);
+    }
+
+    // Only the thresholds change between runs, so every noise sample comes from the cache
+    NoiseCache cache = new NoiseCache();
+    int[] run = {0};
+    bench.run("TerrainGeneration.generateMap", "200x120,cached", () -> {
+      GenerationSettings settings = new GenerationSettings(200, 120).setSeed(SEED)
+          .setNoiseCache(cache).setHillLevel(0.45 + (run[0]++ % 10) * 0.01);
+      return new TerrainGeneration(settings).generateMap().length;
+    });
+  }
+
+  private static void noise(Bench bench) {
+    Noise noise = new Noise(SEED);
+    double[] x = {0};
+    for (int octaves = 1; octaves <= 2; octaves++) {
+      final int o = octaves;
+      bench.run("Noise.noise2", "octaves=" + octaves, () -> {
+        x[0] += 0.37;
+        return (long) (noise.noise2(x[0], x[0] * 0.61, o) * 1000);
+      });
+    }
+
+    double[] row = new double[256];
+    int[] y = {0};
+    bench.run("Noise.noise1Row", "samples=" + row.length, () -> {
+      noise.noise1Row(row, 0, y[0]++, row.length, 15.0, 2);
+      return (long) (row[17] * 1000);
+    });
+  }
+
+  private static void yields(Bench bench) {
+    HexMap map = populatedMap(40, 25);
+    int tiles = map.getTileCount();
+    int[] next = {0};
+    bench.run("Hex.getYieldTotal", "", () -> {
+      Hex h = map.getHex(next[0]++ % tiles);
+      return h.getYieldTotal(YieldType.FOOD) + h.getYieldTotal(YieldType.PRODUCTION);
+    });
+
+    // Building and removing a trading post on tiles worked by a city, which passes the gold change
+    // to the city and its civilization. The civ isn't added to the game, so later benchmarks
+    // don't see it
+    IData.hexMap.populateMap();
+    BaseCivilization civ = new America();
+    Random rnd = new Random(SEED);
+    for (int i = 0; i < 10; i++)
+      civ.createCity(IData.hexMap.getCoordinate(rnd.nextInt(IData.hexMap.getTileCount())));
+    List<Hex> worked = new ArrayList<>();
+    for (int i = 0; i < IData.hexMap.getTileCount(); i++) {
+      Hex h = IData.hexMap.getHex(i);
+      if (h.isWorked() && h.getLandscape() != null)
+        worked.add(h);
+    }
+    TradingPost post = new TradingPost();
+    bench.run("City.tileYieldChanged", "tiles=" + worked.size(), () -> {
+      Hex h = worked.get(next[0]++ % worked.size());
+      h.setImprovement(h.getImprovement() == null ? post : null);
+      return civ.getGoldPT();
+    });
+  }
+
+  /*
+   * Several civilizations with every city founded and an army each, playing turns as Simulation
+   * -produce does: a city with nothing to build starts a warrior, so builds complete and the new
+   * warriors are placed next to their city. Warriors past each civilization's starting army are
+   * disbanded after the turn, so every turn measured starts with armies of the same size.
+   */
+  private static void nextTurn(Bench bench) {
+    IData.hexMap.populateMap();
+    Simulation.setUp(4, 10, 40, SEED);
+    int[] army = new int[IData.civs.size()];
+    for (int c = 0; c < army.length; c++)
+      army[c] = IData.civs.get(c).getUnits().size();
+
+    for (boolean march : new boolean[] {false, true}) {
+      String params = "civs=4,cities=40,units=160,produce" + (march ? ",march" : "");
+      bench.run("NEXT_TURN", params, () -> {
+        Simulation.nextTurn(true, march);
+        return IData.turnCounter + disband(army);
+      });
+    }
+  }
+
+  // Removes each civilization's newest units until it has its starting army, returning how many
+  private static int disband(int[] army) {
+    int removed = 0;
+    for (int c = 0; c < army.length; c++) {
+      List<Unit> units = IData.civs.get(c).getUnits();
+      for (; units.size() > army[c]; removed++)
+        units.get(units.size() - 1).deleteFromMapAndCiv();
+    }
+    return removed;
+  }
+}
@@ -0,0 +1,49 @@
+package civ.bench;
+
+import java.util.Arrays;
+import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+
+/*
+ * Checks HexMap.key and HexMap.hash over every tile of a MAP_SIZE x MAP_SIZE map: each key unpacks
+ * to the coordinates it was made from, and no two tiles share a hash. Run with
+ *   java -cp bin-bench civ.bench.KeyCheck
+ * after ./run-bench.sh has built the benchmarks. Exits with status 1 if either check fails.
+ */
+public class KeyCheck {
+  private static final int MAP_SIZE = 4096;
+
+  public static void main(String[] args) {
+    // Chunked so nothing is generated, only the map's tile layout is needed
+    HexMap map = new HexMap(MAP_SIZE, MAP_SIZE, HexMap.Storage.CHUNKED);
+    int[] hashes = new int[map.getTileCount()];
+    int failures = 0;
+
+    for (int r = 0; r < MAP_SIZE; r++) {
+      for (int col = 0; col < MAP_SIZE; col++) {
+        int q = col - ((r + 1) >> 1);
+        int index = map.indexOf(q, r);
+        long key = HexMap.key(q, r);
+        if (index != r * MAP_SIZE + col || HexMap.keyQ(key) != q || HexMap.keyR(key) != r) {
+          if (failures++ == 0)
+            System.err.println("Key for (" + q + ", " + r + ") unpacks to (" + HexMap.keyQ(key)
+                + ", " + HexMap.keyR(key) + ")");
+          continue;
+        }
+        hashes[index] = HexMap.hash(new HexCoordinate(q, r));
+      }
+    }
+
+    Arrays.sort(hashes);
+    int collisions = 0;
+    for (int i = 1; i < hashes.length; i++) {
+      if (hashes[i] == hashes[i - 1])
+        collisions++;
+    }
+
+    System.out.println(MAP_SIZE + "x" + MAP_SIZE + ": " + hashes.length + " tiles, "
+        + failures + " keys not round-tripping, " + collisions + " hash collisions");
+    if (failures > 0 || collisions > 0)
+      System.exit(1);
+  }
+}
@@ -0,0 +1,8 @@
+#!/bin/bash
+# Builds the game and the benchmarks, then runs them. Arguments are passed on to the harness:
+#   ./run-bench.sh                      print JSON results to stdout
+#   ./run-bench.sh -o results.json      write JSON results to a file
+#   ./run-bench.sh -o astar.json AStar  only run benchmarks whose name contains "AStar"
+mkdir -p bin-bench
+javac -d bin-bench $(find src bench -name *.java) || exit 1
+java -cp bin-bench civ.bench.EngineBenchmarks "$@"
@@ -1,16 +1,23 @@
 package civ.core;
 
 import static civ.core.instance.IData.*;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.EventQueue;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
 import javax.swing.BorderFactory;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
+import civ.core.data.utils.Profiler;
+import civ.core.data.utils.Profiler.Phase;
+import civ.core.event.jfr.FrameEvent;
+import civ.core.event.jfr.UpdateEvent;
 import civ.core.input.KeyboardHandler;
 import civ.core.input.MouseHandler;
 
@@ -19,15 +26,27 @@ public class Civilization extends JPanel implements Runnable {
   
   private JFrame f;
   private JPanel p;
+  private MapCanvas c;
+  private transient BufferStrategy strategy;
   private transient Game game;
   private transient MouseHandler m;
   private transient KeyboardHandler k;
 
   private static final String TITLE = "Civilization";
   private static final double TARGET_UPS = 60.0D;
-  private static final double ONE_NANO = 1E9D;
+  private static final int BUFFERS = 3;
 
-  private boolean running = false;
+  // Frames are paced separately from updates, -Dciv.fps=30 halves the render rate
+  private static final double TARGET_FPS = Integer.getInteger("civ.fps", 60);
+
+  // -Dciv.render=passive paints through Swing (MapPanel) instead of a page-flipped Canvas
+  private static final boolean ACTIVE_RENDERING =
+      !"passive".equalsIgnoreCase(System.getProperty("civ.render"));
+
+  private transient GameLoop loop;
+
+  // Time taken by the last frame drawn, which passive rendering draws on the EDT
+  private volatile long frameNanos;
 
   public static void main(String[] args) {
     
@@ -57,14 +76,17 @@ public class Civilization extends JPanel implements Runnable {
     f = new JFrame();
     m = new MouseHandler();
     k = new KeyboardHandler();
-    p = new MapPanel();
+    if (ACTIVE_RENDERING)
+      c = new MapCanvas();
+    else
+      p = new MapPanel();
   }
 
   public synchronized void start() {
-    running = true;
-
     init();
 
+    loop = new GameLoop(this::update, this::render, this::showFrameStats, TARGET_UPS, TARGET_FPS);
+
     new Thread(this, "Game").start();
   }
 
@@ -76,10 +98,17 @@ public class Civilization extends JPanel implements Runnable {
     f.setResizable(false);
     f.addKeyListener(k);
     f.setPreferredSize(new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT));
-    f.add(p);
+    f.add(c != null ? c : p);
     f.pack();
     f.setLocationRelativeTo(null);
     f.setVisible(true);
+
+    if (c != null) {
+      // The canvas needs to be displayable before it can have a buffer strategy
+      c.createBufferStrategy(BUFFERS);
+      strategy = c.getBufferStrategy();
+      c.requestFocus();
+    }
   }
 
   class MapPanel extends JPanel {
@@ -97,45 +126,94 @@ public class Civilization extends JPanel implements Runnable {
       return new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT);
     }
     
+    // Passive frames are drawn here on the EDT, so this is where they are timed
     @Override
     public void paintComponent(Graphics g) {
+      FrameEvent event = new FrameEvent();
+      event.begin();
+      long start = System.nanoTime();
+
       super.paintComponent(g);
       Graphics2D g2d = (Graphics2D) g;
       game.draw(g2d);
+
+      frameDrawn(event, start, false);
+    }
+  }
+
+  class MapCanvas extends Canvas {
+    private static final long serialVersionUID = 3529310384567283940L;
+    public MapCanvas() {
+      setBackground(Color.BLACK);
+      setIgnoreRepaint(true); // Drawn by the game thread, never by the EDT
+      addMouseListener(m);
+      addMouseMotionListener(m);
+      addMouseWheelListener(m);
+      addKeyListener(k);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+      return new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT);
     }
   }
 
   private void render() {
-    f.repaint();
+    if (strategy == null) {
+      // Only asks Swing for a paint, MapPanel.paintComponent times the frame once it is drawn
+      f.repaint();
+      return;
+    }
+
+    FrameEvent event = new FrameEvent();
+    event.begin();
+    long start = System.nanoTime();
+    renderActive();
+    frameDrawn(event, start, true);
+  }
+
+  private void frameDrawn(FrameEvent event, long start, boolean active) {
+    frameNanos = System.nanoTime() - start;
+    Profiler.record(Phase.FRAME, frameNanos);
+
+    event.active = active;
+    event.commit();
+  }
+
+  private void renderActive() {
+    do {
+      do {
+        Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+        try {
+          g.setColor(Color.BLACK);
+          g.fillRect(0, 0, c.getWidth(), c.getHeight());
+          game.draw(g);
+        } finally {
+          g.dispose();
+        }
+      } while (strategy.contentsRestored()); // Redraw if the buffer was restored mid-frame
+
+      strategy.show();
+      Toolkit.getDefaultToolkit().sync();
+    } while (strategy.contentsLost());
+  }
+
+  private void showFrameStats() {
+    Profiler.setRates(loop.getFramesPerSecond(), loop.getUpdatesPerSecond());
+    final String stats = String.format("%s - %d fps, %d ups, %.2f ms/frame", TITLE,
+        loop.getFramesPerSecond(), loop.getUpdatesPerSecond(), frameNanos / 1E6D);
+    EventQueue.invokeLater(() -> f.setTitle(stats));
   }
 
   private void update() {
+    UpdateEvent event = new UpdateEvent();
+    event.begin();
     game.update();
+    event.turn = turnCounter;
+    event.commit();
   }
 
   public void run() {
-    long lastTime = System.nanoTime();
-    long timer = System.currentTimeMillis();
-    long now = 0;
-    
-    final double ns = ONE_NANO / TARGET_UPS;
-    double delta = 0;
-
-    while (running) {
-      now = System.nanoTime();
-      delta += (now - lastTime) / ns;
-      lastTime = now;
-      
-      while (delta >= 1) {
-        update();
-        
-        render();
-        
-        delta--;
-      }
-
-      if ((System.currentTimeMillis() - timer) > 1000)
-        timer += 1000;
-    }
+    loop.run();
   }
 }
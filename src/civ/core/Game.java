@@ -7,7 +7,7 @@ import static civ.core.instance.IData.civs;
 import static civ.core.instance.IData.currentUnit;
 import static civ.core.instance.IData.hexMap;
 import static civ.core.instance.IData.layout;
-import static civ.core.instance.IData.ui;
+import static civ.core.instance.IDisplay.ui;
 import java.awt.Graphics2D;
 import java.util.List;
 import java.util.Random;
@@ -16,6 +16,8 @@ import civ.core.data.Point;
 import civ.core.data.hex.Hex;
 import civ.core.data.hex.HexCoordinate;
 import civ.core.data.hex.PathHex;
+import civ.core.data.utils.Profiler;
+import civ.core.data.utils.Profiler.Phase;
 import civ.core.input.KeyboardHandler;
 import civ.core.input.MouseHandler;
 import civ.core.map.cities.City;
@@ -35,18 +37,23 @@ public class Game {
     pf = new Pathfinding();
 
     hexMap.populateMap(); // Generate initial map
+    System.out.println("Map seed: " + hexMap.getSettings().getSeed());
 
     createCiv(players);
   }
 
   public void update() {
+    final long updateStart = Profiler.start();
     if (!KeyboardHandler.getPressedSet().isEmpty()) {
       ui.updateKeys(KeyboardHandler.getPressedSet());
     }
 
     ui.setFocusHex();
     setCurrentUnit();
+
+    long t = Profiler.start();
     createUnitPath();
+    t = Profiler.lap(Phase.UNIT_PATH, t);
 
     if (currentUnit != null) {
       currentUnit.getMenu().getMenuButtons().stream().forEach(j -> j.onPress());
@@ -66,21 +73,36 @@ public class Game {
     }
 
     ui.getMenuButtons().forEach(i -> i.onPress());
+    Profiler.lap(Phase.BUTTONS, t);
+    Profiler.lap(Phase.UPDATE, updateStart);
   }
 
   public void draw(Graphics2D g) {
     ui.setRenderOptions(g);
 
+    long t = Profiler.start();
     ui.drawHexGrid(g);
+    t = Profiler.lap(Phase.HEX_GRID, t);
     ui.drawCities(g);
+    t = Profiler.lap(Phase.CITIES, t);
     ui.drawUnits(g);
+    t = Profiler.lap(Phase.UNITS, t);
     ui.drawSelectedHex(g);
+    t = Profiler.lap(Phase.SELECTED_HEX, t);
     ui.drawPath(g);
+    t = Profiler.lap(Phase.PATH, t);
     ui.drawFocusHex(g);
+    t = Profiler.lap(Phase.FOCUS_HEX, t);
     ui.drawHexInspect(g);
+    t = Profiler.lap(Phase.HEX_INSPECT, t);
     ui.drawUI(g);
+    t = Profiler.lap(Phase.UI, t);
     ui.drawCityManagementUI(g);
+    t = Profiler.lap(Phase.CITY_UI, t);
     ui.drawActionMenus(g);
+    Profiler.lap(Phase.ACTION_MENUS, t);
+
+    ui.drawProfiler(g);
   }
 
   private void createCiv(int players) {
@@ -93,13 +115,12 @@ public class Game {
     HexCoordinate warrior;
     Hex tempH;
 
+    // Try again if the settler lands off the map or somewhere with no room for the warrior
     do {
       settler = getRandomUnitCoord();
       tempH = hexMap.getHex(settler);
-    } while ((tempH == null));
-
-    // Ensure the neighbour is in the map, the following loop will not get stuck on infinite loop
-    warrior = settler.getValidRandomNeighbour(true);
+      warrior = tempH != null ? settler.getValidRandomNeighbour(rnd, true) : null;
+    } while (warrior == null);
 
     // Set the units in the hexes
     Unit s = new Settler(civs.get(0), settler, true);
@@ -146,7 +167,8 @@ public class Game {
       if (canCreatePath) {
         hexToPath = tempTo;
         List<PathHex> finalPath =
-            currentUnit.validUnitMove(pf.findPath(hexMap.getMap(), focusHex, hexToPath));
+            currentUnit.validUnitMove(pf.findUnitPath(hexMap, currentUnit, focusHex, hexToPath),
+                pf.getMovementRange(hexMap, currentUnit));
         ui.setFocusedUnitPath(finalPath);
       }
     }
@@ -0,0 +1,115 @@
+package civ.core;
+
+import java.util.concurrent.locks.LockSupport;
+import civ.core.event.callback.EventCallbackI;
+import civ.core.input.InputActivity;
+
+/*
+ * Fixed timestep game loop. Updates run at a steady rate and frames at their own rate, and the
+ * thread parks between them instead of spinning. When it falls behind it runs at most
+ * MAX_CATCH_UP updates back to back and drops the rest, so one slow frame cannot snowball. With
+ * no input for a while both rates drop to IDLE_RATE, until the next input wakes the loop.
+ */
+public class GameLoop implements Runnable {
+  private static final long ONE_SECOND = 1_000_000_000L;
+  private static final int MAX_CATCH_UP = 5;
+  private static final double IDLE_RATE = 4.0D;
+
+  private final EventCallbackI update;
+  private final EventCallbackI render;
+  private final EventCallbackI second;
+
+  private final long updateStep;
+  private final long renderStep;
+  private final long idleStep;
+
+  private volatile boolean running = false;
+
+  private int fps;
+  private int ups;
+
+  /*
+   * second is called once a second, after the frame and update counts for that second are
+   * known.
+   */
+  public GameLoop(EventCallbackI update, EventCallbackI render, EventCallbackI second,
+      double targetUps, double targetFps) {
+    this.update = update;
+    this.render = render;
+    this.second = second;
+    this.updateStep = (long) (ONE_SECOND / targetUps);
+    this.renderStep = (long) (ONE_SECOND / targetFps);
+    this.idleStep = (long) (ONE_SECOND / IDLE_RATE);
+  }
+
+  @Override
+  public void run() {
+    running = true;
+    InputActivity.setWaiter(Thread.currentThread());
+
+    long now = System.nanoTime();
+    long nextUpdate = now;
+    long nextRender = now;
+    long nextSecond = now + ONE_SECOND;
+    int frames = 0;
+    int updates = 0;
+    boolean wasIdle = false;
+
+    while (running) {
+      now = System.nanoTime();
+
+      boolean idle = InputActivity.isIdle(now);
+      if (wasIdle && !idle) {
+        // Input arrived while idle, respond to it now rather than at the next idle tick
+        nextUpdate = now;
+        nextRender = now;
+      }
+      wasIdle = idle;
+
+      long uStep = idle ? idleStep : updateStep;
+      long rStep = idle ? idleStep : renderStep;
+
+      int caughtUp = 0;
+      while (now - nextUpdate >= 0 && caughtUp++ < MAX_CATCH_UP) {
+        update.invoke();
+        updates++;
+        nextUpdate += uStep;
+      }
+      if (now - nextUpdate >= 0)
+        nextUpdate = now + uStep; // Too far behind, drop the updates that were missed
+
+      if (now - nextRender >= 0) {
+        render.invoke();
+        frames++;
+        nextRender += rStep;
+        if (now - nextRender >= 0)
+          nextRender = now + rStep;
+      }
+
+      if (now - nextSecond >= 0) {
+        nextSecond += ONE_SECOND;
+        fps = frames;
+        ups = updates;
+        frames = 0;
+        updates = 0;
+        second.invoke();
+      }
+
+      long wait = Math.min(Math.min(nextUpdate, nextRender), nextSecond) - System.nanoTime();
+      if (wait > 0)
+        LockSupport.parkNanos(this, wait);
+    }
+  }
+
+  public void stop() {
+    running = false;
+  }
+
+  public int getFramesPerSecond() {
+    return fps;
+  }
+
+  public int getUpdatesPerSecond() {
+    return ups;
+  }
+}
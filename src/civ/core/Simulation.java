@@ -0,0 +1,167 @@
+package civ.core;
+
+import static civ.core.instance.IData.civs;
+import static civ.core.instance.IData.hexMap;
+import static civ.core.instance.IData.turnCounter;
+import java.util.List;
+import java.util.Random;
+import civ.core.ai.FlowField;
+import civ.core.ai.Pathfinding;
+import civ.core.data.hex.Hex;
+import civ.core.event.Events;
+import civ.core.map.cities.City;
+import civ.core.map.civilization.America;
+import civ.core.map.civilization.BaseCivilization;
+import civ.core.map.civilization.England;
+import civ.core.unit.Unit;
+import civ.core.unit.Warrior;
+
+/*
+ * Plays turns without a window, for balance and soak runs on machines with no display:
+ *   java -cp bin civ.core.Simulation [-turns N] [-warmup N] [-civs N] [-cities N] [-units N]
+ *       [-produce] [-march]
+ * Every civilization gets the given number of cities and warriors on random passable tiles. With
+ * -produce, each city with nothing to build queues a warrior, so the unit count grows as it would
+ * in a game. With -march, each civilization's units walk towards the next civilization's capital.
+ * The map is set up from the usual civ.seed, civ.mapWidth and civ.mapHeight properties, and the
+ * same seed places the same cities and units.
+ */
+public class Simulation {
+  private static final int DEFAULT_TURNS = 500;
+  private static final int DEFAULT_WARMUP = 50;
+  private static final int DEFAULT_CIVS = 4;
+  private static final int DEFAULT_CITIES = 10;
+  private static final int DEFAULT_UNITS = 40;
+  private static final int PLACEMENT_TRIES = 1000;
+
+  private static final Pathfinding PATHFINDING = new Pathfinding();
+
+  private Simulation() {
+    throw new IllegalStateException("Utility Class");
+  }
+
+  public static void main(String[] args) {
+    // Before anything touches AWT, so the game state never looks for a screen
+    System.setProperty("java.awt.headless", "true");
+
+    int turns = DEFAULT_TURNS;
+    int warmup = DEFAULT_WARMUP;
+    int civCount = DEFAULT_CIVS;
+    int cities = DEFAULT_CITIES;
+    int units = DEFAULT_UNITS;
+    boolean produce = false;
+    boolean march = false;
+    for (int i = 0; i < args.length; i++) {
+      if ("-produce".equals(args[i]))
+        produce = true;
+      else if ("-march".equals(args[i]))
+        march = true;
+      else if (i + 1 >= args.length)
+        throw new IllegalArgumentException("Missing value for " + args[i]);
+      else if ("-turns".equals(args[i]))
+        turns = Integer.parseInt(args[++i]);
+      else if ("-warmup".equals(args[i]))
+        warmup = Integer.parseInt(args[++i]);
+      else if ("-civs".equals(args[i]))
+        civCount = Integer.parseInt(args[++i]);
+      else if ("-cities".equals(args[i]))
+        cities = Integer.parseInt(args[++i]);
+      else if ("-units".equals(args[i]))
+        units = Integer.parseInt(args[++i]);
+      else
+        throw new IllegalArgumentException("Unknown option " + args[i]);
+    }
+
+    hexMap.populateMap();
+    long seed = hexMap.getSettings().getSeed();
+    System.out.println("Map seed: " + seed + " (" + hexMap.getMapWidth() + "x"
+        + hexMap.getMapHeight() + ")");
+    setUp(civCount, cities, units, seed);
+
+    for (int i = 0; i < warmup; i++)
+      nextTurn(produce, march);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < turns; i++)
+      nextTurn(produce, march);
+    long elapsed = System.nanoTime() - start;
+
+    int cityTotal = 0;
+    int unitTotal = 0;
+    for (BaseCivilization civ : civs) {
+      cityTotal += civ.getNumberOfCities();
+      unitTotal += civ.getUnits().size();
+    }
+    System.out.printf("%d turns in %.1f ms, %.1f turns/s%n", turns, elapsed / 1e6,
+        turns / (elapsed / 1e9));
+    System.out.println("Turn " + turnCounter + ": " + civs.size() + " civilizations, " + cityTotal
+        + " cities, " + unitTotal + " units");
+  }
+
+  /*
+   * Adds civCount civilizations to the game, alternating America and England, each with cities and
+   * warriors placed from seed on passable hexes. Warriors go on the map as in a game, one to a
+   * hex; any that find no free hex are left out. Every civilization gets its own id, and so its
+   * own random numbers.
+   */
+  public static void setUp(int civCount, int cities, int units, long seed) {
+    Random rnd = new Random(seed);
+    for (int c = 0; c < civCount; c++) {
+      BaseCivilization civ = c % 2 == 0 ? new America(c / 2) : new England(c / 2);
+      civs.add(civ);
+      for (int i = 0; i < cities; i++) {
+        Hex h = randomFreeHex(rnd);
+        if (h != null)
+          civ.createCity(h);
+      }
+      for (int i = 0; i < units; i++) {
+        Hex h = randomFreeHex(rnd);
+        if (h != null)
+          new Warrior(civ, h, true).addToMapAndCiv();
+      }
+    }
+  }
+
+  // A passable hex with no military unit on it, or null if none turns up after PLACEMENT_TRIES
+  private static Hex randomFreeHex(Random rnd) {
+    for (int i = 0; i < PLACEMENT_TRIES; i++) {
+      Hex h = hexMap.getHex(rnd.nextInt(hexMap.getTileCount()));
+      if (h != null && h.isPassable() && h.canSetMilitary())
+        return h;
+    }
+    return null;
+  }
+
+  public static void nextTurn(boolean produce, boolean march) {
+    if (produce) {
+      for (BaseCivilization civ : civs) {
+        for (City city : civ.getCities()) {
+          if (city.isProductionQueueEmpty())
+            city.addToProductionQueue(new Warrior());
+        }
+      }
+    }
+    if (march)
+      march();
+    Events.NEXT_TURN.getFunctionCall().invoke();
+  }
+
+  /*
+   * Every civilization's units head for the next civilization's first city. All the units of a
+   * civilization read their steps from one flow field, rather than searching for a path each.
+   */
+  private static void march() {
+    for (int c = 0; c < civs.size(); c++) {
+      List<City> targets = civs.get((c + 1) % civs.size()).getCities();
+      if (targets.isEmpty())
+        continue;
+
+      FlowField field = PATHFINDING.getFlowField(hexMap, targets.get(0).getCityPosition());
+      if (field == null)
+        continue;
+
+      for (Unit unit : civs.get(c).getUnits())
+        unit.moveAlong(field);
+    }
+  }
+}
@@ -1,99 +1,131 @@
 package civ.core.ai;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import civ.core.data.hex.Hex;
 import civ.core.data.hex.HexCoordinate;
 import civ.core.data.map.HexMap;
+import civ.core.event.jfr.PathSearchEvent;
 
+/*
+ * A* over tile indices. The score arrays and the open set heap are sized to the map and reused
+ * between searches; a search stamp marks which entries belong to the current search so nothing
+ * has to be cleared. Not thread safe, each caller should own its instance.
+ */
 public class AStar {
+  private static final int NO_PARENT = -1;
 
-  public List<HexCoordinate> aStar(Map<Integer, Hex> map, HexCoordinate start, HexCoordinate end) {
+  private int[] gScore = new int[0];
+  private int[] fScore = new int[0];
+  private int[] cameFrom = new int[0];
+  private int[] openedAt = new int[0];
+  private int[] closedAt = new int[0];
+  private int[] heapPosition = new int[0];
+
+  private int[] heap = new int[0];
+  private int heapSize;
+
+  private int stamp = 0;
+  private int expanded;
+
+  public List<HexCoordinate> aStar(HexMap map, HexCoordinate start, HexCoordinate end) {
     if (start == null || end == null)
       return Collections.emptyList();
-    
-    int size = map.size();
-    final List<Hex> openSet = new ArrayList<>(size);
-    final Set<Hex> closedSet = new HashSet<>(size);
-    final Map<Hex, Hex> cameFrom = new HashMap<>(size);
-
-    final Map<Hex, Integer> gScore = new HashMap<>();
-    final Map<Hex, Integer> fScore = new HashMap<>();
-
-    Hex startHex = map.get(HexMap.hash(start));
-    Hex endHex = map.get(HexMap.hash(end));
-
-    openSet.add(startHex);
-    gScore.put(startHex, 0);
-
-    //For each nodes in the map, we set the current score to infinite
-    for (Hex h : map.values())
-      fScore.put(h, Integer.MAX_VALUE);
-    
-    fScore.put(startHex, heuristicCost(startHex, endHex));
-
-    final Comparator<Hex> comparator = (v1, v2) -> {
-      if (fScore.get(v1) < fScore.get(v2))
-        return -1;
-      else if (fScore.get(v1) > fScore.get(v2))
-        return 1;
-      else
-        return 0;
-    };
-
-    while (!openSet.isEmpty()) { // Iterate through the open set of hexes
-      final Hex current = map.get(HexMap.hash(openSet.get(0)));
-
-      if (current.equals(endHex))
-        return rebuildPath(cameFrom, startHex, endHex); // The end of the path is reached, rebuild final path
-
-      openSet.remove(0);
-      closedSet.add(current);
+
+    final int startIndex = map.indexOf(start);
+    final int endIndex = map.indexOf(end);
+    if (startIndex < 0 || endIndex < 0)
+      return Collections.emptyList();
+
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    expanded = 0;
+
+    List<HexCoordinate> path = search(map, startIndex, endIndex);
+
+    if (event.shouldCommit()) {
+      event.startTile = startIndex;
+      event.endTile = endIndex;
+      event.nodesExpanded = expanded;
+      event.pathLength = path.size();
+      event.commit();
+    }
+    return path;
+  }
+
+  private List<HexCoordinate> search(HexMap map, int startIndex, int endIndex) {
+    final Hex startHex = map.getHex(startIndex);
+    final Hex endHex = map.getHex(endIndex);
+    if (startHex == null || endHex == null)
+      return Collections.emptyList();
+
+    prepare(map.getTileCount());
+
+    gScore[startIndex] = 0;
+    cameFrom[startIndex] = NO_PARENT;
+    push(startIndex, heuristicCost(startHex, endHex));
+
+    while (heapSize > 0) { // Iterate through the open set of hexes
+      final int current = pop();
+
+      if (current == endIndex)
+        return rebuildPath(map, startIndex, endIndex); // The end of the path is reached, rebuild final path
+
+      closedAt[current] = stamp;
+      expanded++;
       for (int i = 0; i < HexCoordinate.NEIGHBOURS; i++) { // Iterate through all the neighbours of the current hex
-        final Hex neighbour = map.get(HexMap.hash(current.neighbor(i)));
-        
-        if (map.containsValue(neighbour)
-            && neighbour.getFeatures().stream().allMatch(x -> x.getPassable())) { // Does the list contain the neighbour
-
-          if (closedSet.contains(neighbour))
-            continue;
-            
-          // Calculate the tentitive cost to move to the next cell
-          final int t_GScore = gScore.get(current) + dist(current, neighbour);
-          
-          // New node is found
-          if (!openSet.contains(neighbour))
-            openSet.add(neighbour);
-          else if (t_GScore >= gScore.get(neighbour)) // This route is worse
-            continue;
-         
-          // New node is found
-          if (!openSet.contains(neighbour))
-            openSet.add(neighbour);
-
-          // New route is better
-          cameFrom.put(neighbour, current);
-          gScore.put(neighbour, t_GScore);
-
-          final int estimatedFScore = gScore.get(neighbour) + heuristicCost(neighbour, endHex);
-          fScore.put(neighbour, estimatedFScore);
-
-          // Sort the set, based on the defined hex comparator
-          Collections.sort(openSet, comparator);
+        final int neighbour = map.neighbourIndex(current, i);
+        if (neighbour < 0)
+          continue;
+
+        final Hex neighbourHex = map.getHex(neighbour);
+        if (neighbourHex == null || !neighbourHex.isPassable())
+          continue;
+
+        // Neighbouring hexes are always one step apart
+        final int tentativeGScore = gScore[current] + 1;
+
+        final boolean isSeen = openedAt[neighbour] == stamp;
+        if (isSeen && tentativeGScore >= gScore[neighbour]) // This route is worse
+          continue;
+
+        // New route is better
+        cameFrom[neighbour] = current;
+        gScore[neighbour] = tentativeGScore;
+
+        final int estimatedFScore = tentativeGScore + heuristicCost(neighbourHex, endHex);
+        if (isSeen && closedAt[neighbour] != stamp) {
+          decreaseKey(neighbour, estimatedFScore);
+        } else {
+          // The heuristic is not consistent, so a closed hex can still be reached more cheaply
+          closedAt[neighbour] = 0;
+          push(neighbour, estimatedFScore);
         }
       }
     }
     return Collections.emptyList();
   }
 
-  private int dist(Hex start, Hex end) {
-    return start.distance(end);
+  private void prepare(int tileCount) {
+    if (gScore.length != tileCount) {
+      gScore = new int[tileCount];
+      fScore = new int[tileCount];
+      cameFrom = new int[tileCount];
+      openedAt = new int[tileCount];
+      closedAt = new int[tileCount];
+      heapPosition = new int[tileCount];
+      heap = new int[tileCount];
+      stamp = 0;
+    }
+
+    if (++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(openedAt, 0);
+      Arrays.fill(closedAt, 0);
+      stamp = 1;
+    }
+    heapSize = 0;
   }
 
   private int heuristicCost(Hex start, Hex end) {
@@ -104,13 +136,67 @@ public class AStar {
     return h.getMovementTotal();
   }
 
-  private List<HexCoordinate> rebuildPath(Map<Hex, Hex> cameFrom, Hex start, Hex current) {
+  private void push(int tile, int f) {
+    openedAt[tile] = stamp;
+    fScore[tile] = f;
+    heap[heapSize] = tile;
+    heapPosition[tile] = heapSize;
+    siftUp(heapSize++);
+  }
+
+  private int pop() {
+    final int top = heap[0];
+    heap[0] = heap[--heapSize];
+    heapPosition[heap[0]] = 0;
+    siftDown(0);
+    return top;
+  }
+
+  private void decreaseKey(int tile, int f) {
+    fScore[tile] = f;
+    siftUp(heapPosition[tile]);
+  }
+
+  private void siftUp(int pos) {
+    final int tile = heap[pos];
+    final int f = fScore[tile];
+    while (pos > 0) {
+      final int parent = (pos - 1) >> 1;
+      if (fScore[heap[parent]] <= f)
+        break;
+      heap[pos] = heap[parent];
+      heapPosition[heap[pos]] = pos;
+      pos = parent;
+    }
+    heap[pos] = tile;
+    heapPosition[tile] = pos;
+  }
+
+  private void siftDown(int pos) {
+    final int tile = heap[pos];
+    final int f = fScore[tile];
+    final int half = heapSize >> 1;
+    while (pos < half) {
+      int child = (pos << 1) + 1;
+      if (child + 1 < heapSize && fScore[heap[child + 1]] < fScore[heap[child]])
+        child++;
+      if (f <= fScore[heap[child]])
+        break;
+      heap[pos] = heap[child];
+      heapPosition[heap[pos]] = pos;
+      pos = child;
+    }
+    heap[pos] = tile;
+    heapPosition[tile] = pos;
+  }
+
+  private List<HexCoordinate> rebuildPath(HexMap map, int start, int current) {
     final List<HexCoordinate> totalPath = new ArrayList<>();
-    totalPath.add(current.getPosition());
-    while (cameFrom.containsKey(current)) {
-      current = cameFrom.get(current);
-      if (!start.equals(current))
-        totalPath.add(current.getPosition());
+    totalPath.add(map.getCoordinate(current));
+    while (cameFrom[current] != NO_PARENT) {
+      current = cameFrom[current];
+      if (current != start)
+        totalPath.add(map.getCoordinate(current));
     }
     return totalPath;
   }
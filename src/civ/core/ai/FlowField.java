@@ -0,0 +1,106 @@
+package civ.core.ai;
+
+import java.util.Arrays;
+import civ.core.data.hex.Hex;
+import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+
+/*
+ * Steps towards one target hex for any number of units. A single breadth first search out from
+ * the target gives every hex its step count to the target, and each hex keeps the neighbour that
+ * gets closest, so reading the next step is O(1). Uses the same passability rules as AStar.
+ *
+ * The field only depends on terrain. Occupancy is checked when a unit asks for its step, so
+ * units moving around the map do not force the field to be rebuilt.
+ */
+public class FlowField {
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+  public static final int NO_STEP = -1;
+
+  private final HexMap map;
+  private final int target;
+  private final int[] integration;
+  private final int[] next;
+
+  FlowField(HexMap map, int target) {
+    this.map = map;
+    this.target = target;
+
+    int tileCount = map.getTileCount();
+    integration = new int[tileCount];
+    next = new int[tileCount];
+    Arrays.fill(integration, UNREACHABLE);
+    Arrays.fill(next, NO_STEP);
+
+    integrate(new int[tileCount]);
+  }
+
+  private void integrate(int[] queue) {
+    int head = 0;
+    int tail = 0;
+    integration[target] = 0;
+    queue[tail++] = target;
+
+    while (head < tail) {
+      int current = queue[head++];
+      for (int d = 0; d < HexCoordinate.NEIGHBOURS; d++) {
+        int neighbour = map.neighbourIndex(current, d);
+        if (neighbour < 0 || integration[neighbour] != UNREACHABLE)
+          continue;
+
+        Hex h = map.getHex(neighbour);
+        if (h == null || !h.isPassable())
+          continue;
+
+        // Breadth first, so the first hex to reach a neighbour is also its best next step
+        integration[neighbour] = integration[current] + 1;
+        next[neighbour] = current;
+        queue[tail++] = neighbour;
+      }
+    }
+  }
+
+  public int getTarget() {
+    return target;
+  }
+
+  public int getCost(int tile) {
+    return integration[tile];
+  }
+
+  public int nextTile(int tile) {
+    return next[tile];
+  }
+
+  /*
+   * Next hex for a unit on 'tile', skipping hexes whose slot for that kind of unit is taken.
+   * Returns NO_STEP when the unit is at the target, cannot reach it, or is boxed in for now.
+   */
+  public int nextStep(int tile, boolean isMilitary) {
+    int best = next[tile];
+    if (best == NO_STEP || canEnter(best, isMilitary))
+      return best;
+
+    int bestCost = integration[tile];
+    best = NO_STEP;
+    for (int d = 0; d < HexCoordinate.NEIGHBOURS; d++) {
+      int neighbour = map.neighbourIndex(tile, d);
+      if (neighbour >= 0 && integration[neighbour] < bestCost && canEnter(neighbour, isMilitary)) {
+        best = neighbour;
+        bestCost = integration[neighbour];
+      }
+    }
+    return best;
+  }
+
+  public HexCoordinate nextStep(HexCoordinate from, boolean isMilitary) {
+    int tile = map.indexOf(from);
+    int step = tile >= 0 ? nextStep(tile, isMilitary) : NO_STEP;
+    return step != NO_STEP ? map.getCoordinate(step) : null;
+  }
+
+  private boolean canEnter(int tile, boolean isMilitary) {
+    Hex h = map.getHex(tile);
+    return isMilitary ? h.canSetMilitary() : h.canSetCivilian();
+  }
+}
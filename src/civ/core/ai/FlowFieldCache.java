@@ -0,0 +1,73 @@
+package civ.core.ai;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import civ.core.data.hex.Hex;
+import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+
+/*
+ * Flow fields by target tile, least recently used evicted first. Fields are dropped when a tile
+ * changes passability, whether the hex was replaced or its features edited in place; units moving
+ * leave them alone.
+ */
+public class FlowFieldCache {
+  private static final int MAX_FIELDS = 16;
+
+  private final HexMap map;
+  private final boolean[] passable;
+  private final Map<Integer, FlowField> fields;
+
+  public FlowFieldCache(HexMap map) {
+    this.map = map;
+    this.passable = new boolean[map.getTileCount()];
+    this.fields = new LinkedHashMap<Integer, FlowField>(MAX_FIELDS, 0.75f, true) {
+      private static final long serialVersionUID = -2911519640735826185L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+        return size() > MAX_FIELDS;
+      }
+    };
+
+    snapshotPassability();
+    map.addTileListener(this::tileChanged);
+  }
+
+  public HexMap getMap() {
+    return map;
+  }
+
+  public FlowField get(HexCoordinate target) {
+    int tile = map.indexOf(target);
+    if (tile < 0 || map.getHex(tile) == null)
+      return null;
+
+    FlowField field = fields.get(tile);
+    if (field == null) {
+      field = new FlowField(map, tile);
+      fields.put(tile, field);
+    }
+    return field;
+  }
+
+  private void tileChanged(int index) {
+    if (index == HexMap.ALL_TILES) {
+      snapshotPassability();
+      fields.clear();
+    } else if (passable[index] != isPassable(index)) {
+      passable[index] = !passable[index];
+      fields.clear();
+    }
+  }
+
+  private void snapshotPassability() {
+    for (int i = 0; i < passable.length; i++)
+      passable[i] = isPassable(i);
+  }
+
+  private boolean isPassable(int index) {
+    Hex h = map.getHex(index);
+    return h != null && h.isPassable();
+  }
+}
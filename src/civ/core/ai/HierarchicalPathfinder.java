@@ -0,0 +1,556 @@
+package civ.core.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import civ.core.data.hex.Hex;
+import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+
+/*
+ * Hierarchical A* (HPA*). The map is cut into CLUSTER_SIZE x CLUSTER_SIZE clusters of offset
+ * rows/columns. Where two clusters touch, each contiguous run of passable crossings gets an
+ * entrance on either side for every pair of areas it joins that are not connected to each other
+ * inside the two clusters, and the step costs between the entrances of a cluster are found once
+ * with a breadth first search inside it. A query searches that small entrance graph and then
+ * refines each abstract step with a search confined to a single cluster.
+ *
+ * Clusters with a tile that was replaced or had its terrain edited are rebuilt, with their
+ * neighbours, before the next query.
+ * Uses the same step cost and passability rules as AStar; paths are near optimal rather than
+ * exact, and are returned in the same form (end first, start excluded).
+ */
+public class HierarchicalPathfinder {
+  public static final int CLUSTER_SIZE = 16;
+
+  private static final int UNREACHABLE = -1;
+  private static final int NO_PARENT = -1;
+  private static final int NO_AREA = -1;
+
+  private final HexMap map;
+  private final int clustersWide;
+  private final int clustersHigh;
+
+  private final int[][] entrances;
+  private final int[][][] partners;
+  private final int[][] intraCost;
+
+  private final boolean[] dirty;
+  private boolean anyDirty = true;
+
+  // Connected area of every open tile, or NO_AREA, relabelled after any tile changes
+  private final int[] area;
+  private boolean areasDirty = true;
+
+  // Scratch space for searches confined to one cluster, indexed by position inside the cluster
+  private final int[] localVisitedAt = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+  private final int[] localDistance = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+  private final int[] localCameFrom = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+  private final int[] localQueue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+  private int localStamp = 0;
+
+  // Scratch space for the abstract search, indexed by tile; the extra slot is the goal
+  private final int[] gScore;
+  private final int[] cameFrom;
+  private final int[] openedAt;
+  private final int[] closedAt;
+  private long[] open = new long[64];
+  private int openSize;
+  private int stamp = 0;
+
+  public HierarchicalPathfinder(HexMap map) {
+    this.map = map;
+    this.clustersWide = (map.getMapWidth() + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+    this.clustersHigh = (map.getMapHeight() + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+
+    int clusterCount = clustersWide * clustersHigh;
+    entrances = new int[clusterCount][];
+    partners = new int[clusterCount][][];
+    intraCost = new int[clusterCount][];
+    dirty = new boolean[clusterCount];
+    Arrays.fill(dirty, true);
+
+    int nodes = map.getTileCount() + 1;
+    gScore = new int[nodes];
+    cameFrom = new int[nodes];
+    openedAt = new int[nodes];
+    closedAt = new int[nodes];
+    area = new int[map.getTileCount()];
+
+    map.addTileListener(this::tileChanged);
+  }
+
+  public HexMap getMap() {
+    return map;
+  }
+
+  private void tileChanged(int index) {
+    anyDirty = true;
+    areasDirty = true;
+    if (index == HexMap.ALL_TILES) {
+      Arrays.fill(dirty, true);
+      return;
+    }
+
+    // Entrances on both sides of a border depend on the tile, so neighbouring clusters go too
+    int cx = clusterX(index);
+    int cy = clusterY(index);
+    for (int y = Math.max(0, cy - 1); y <= Math.min(clustersHigh - 1, cy + 1); y++) {
+      for (int x = Math.max(0, cx - 1); x <= Math.min(clustersWide - 1, cx + 1); x++)
+        dirty[y * clustersWide + x] = true;
+    }
+  }
+
+  public List<HexCoordinate> findPath(HexCoordinate start, HexCoordinate end) {
+    if (start == null || end == null)
+      return Collections.emptyList();
+
+    int from = map.indexOf(start);
+    int to = map.indexOf(end);
+    if (from < 0 || to < 0 || map.getHex(from) == null || map.getHex(to) == null)
+      return Collections.emptyList();
+
+    if (from == to)
+      return Collections.singletonList(map.getCoordinate(to));
+
+    if (!isOpen(to))
+      return Collections.emptyList();
+
+    rebuildDirtyClusters();
+
+    List<Integer> tiles = new ArrayList<>();
+    int fromCluster = clusterOf(from);
+    int toCluster = clusterOf(to);
+
+    if (fromCluster != toCluster || !localPath(fromCluster, from, to, tiles)) {
+      tiles.clear();
+      if (!abstractPath(from, to, tiles))
+        return Collections.emptyList();
+    }
+
+    List<HexCoordinate> path = new ArrayList<>(tiles.size());
+    for (int i = tiles.size() - 1; i >= 0; i--)
+      path.add(map.getCoordinate(tiles.get(i)));
+    return path;
+  }
+
+  /*
+   * False when no search can join the tiles: the end is closed, or both are open and lie in
+   * different connected areas. Labelling the areas is one pass over the map, redone after a tile
+   * changes.
+   */
+  public boolean mayConnect(HexCoordinate start, HexCoordinate end) {
+    int from = start != null ? map.indexOf(start) : -1;
+    int to = end != null ? map.indexOf(end) : -1;
+    if (from < 0 || to < 0 || from == to)
+      return true;
+    if (!isOpen(to))
+      return false;
+
+    if (areasDirty)
+      labelAreas();
+    return area[from] == NO_AREA || area[from] == area[to];
+  }
+
+  private void labelAreas() {
+    Arrays.fill(area, NO_AREA);
+    int[] queue = new int[area.length];
+    int next = 0;
+    for (int seed = 0; seed < area.length; seed++) {
+      if (area[seed] != NO_AREA || !isOpen(seed))
+        continue;
+
+      int head = 0;
+      int tail = 0;
+      area[seed] = next;
+      queue[tail++] = seed;
+      while (head < tail) {
+        int current = queue[head++];
+        for (int d = 0; d < HexCoordinate.NEIGHBOURS; d++) {
+          int neighbour = map.neighbourIndex(current, d);
+          if (neighbour >= 0 && area[neighbour] == NO_AREA && isOpen(neighbour)) {
+            area[neighbour] = next;
+            queue[tail++] = neighbour;
+          }
+        }
+      }
+      next++;
+    }
+    areasDirty = false;
+  }
+
+  private void rebuildDirtyClusters() {
+    if (!anyDirty)
+      return;
+
+    for (int c = 0; c < dirty.length; c++) {
+      if (dirty[c]) {
+        buildEntrances(c);
+        buildIntraCosts(c);
+        dirty[c] = false;
+      }
+    }
+    anyDirty = false;
+  }
+
+  /*
+   * Entrances of a cluster are the cluster's side of every crossing chosen between it and each
+   * neighbouring cluster. Crossings are always chosen from the lower numbered cluster's side, so
+   * both clusters agree on them whichever one is rebuilt.
+   */
+  private void buildEntrances(int cluster) {
+    List<Integer> found = new ArrayList<>();
+    List<List<Integer>> foundPartners = new ArrayList<>();
+    int cx = cluster % clustersWide;
+    int cy = cluster / clustersWide;
+
+    for (int y = Math.max(0, cy - 1); y <= Math.min(clustersHigh - 1, cy + 1); y++) {
+      for (int x = Math.max(0, cx - 1); x <= Math.min(clustersWide - 1, cx + 1); x++) {
+        int other = y * clustersWide + x;
+        if (other == cluster)
+          continue;
+
+        int[] crossings = chooseCrossings(Math.min(cluster, other), Math.max(cluster, other));
+        for (int i = 0; i < crossings.length; i += 2) {
+          int inside = cluster < other ? crossings[i] : crossings[i + 1];
+          int outside = cluster < other ? crossings[i + 1] : crossings[i];
+
+          int slot = found.indexOf(inside);
+          if (slot < 0) {
+            found.add(inside);
+            foundPartners.add(new ArrayList<>());
+            slot = found.size() - 1;
+          }
+          foundPartners.get(slot).add(outside);
+        }
+      }
+    }
+
+    int n = found.size();
+    entrances[cluster] = new int[n];
+    partners[cluster] = new int[n][];
+    for (int i = 0; i < n; i++) {
+      entrances[cluster][i] = found.get(i);
+      List<Integer> p = foundPartners.get(i);
+      partners[cluster][i] = new int[p.size()];
+      for (int j = 0; j < p.size(); j++)
+        partners[cluster][i][j] = p.get(j);
+    }
+  }
+
+  // Returns (inside, outside) tile pairs, from the middle of each group of connected crossings
+  private int[] chooseCrossings(int low, int high) {
+    List<Integer> run = new ArrayList<>();
+    List<Integer> chosen = new ArrayList<>();
+    int lastInside = NO_PARENT;
+
+    int startCol = (low % clustersWide) * CLUSTER_SIZE;
+    int startRow = (low / clustersWide) * CLUSTER_SIZE;
+    int endCol = Math.min(startCol + CLUSTER_SIZE, map.getMapWidth());
+    int endRow = Math.min(startRow + CLUSTER_SIZE, map.getMapHeight());
+
+    for (int row = startRow; row < endRow; row++) {
+      for (int col = startCol; col < endCol; col++) {
+        int inside = row * map.getMapWidth() + col;
+        if (!isOpen(inside))
+          continue;
+
+        for (int d = 0; d < HexCoordinate.NEIGHBOURS; d++) {
+          int outside = map.neighbourIndex(inside, d);
+          if (outside < 0 || clusterOf(outside) != high || !isOpen(outside))
+            continue;
+
+          boolean continuesRun = lastInside != NO_PARENT
+              && (lastInside == inside || map.distance(lastInside, inside) == 1);
+          if (!continuesRun)
+            closeRun(run, chosen);
+
+          run.add(inside);
+          run.add(outside);
+          lastInside = inside;
+        }
+      }
+    }
+    closeRun(run, chosen);
+
+    int[] result = new int[chosen.size()];
+    for (int i = 0; i < result.length; i++)
+      result[i] = chosen.get(i);
+    return result;
+  }
+
+  /*
+   * Crossings in one run can still be cut off from each other inside either cluster, e.g. by a
+   * mountain range meeting the border. The run is split into groups whose inside tiles are
+   * connected within their cluster and whose outside tiles are too, and each group gets an entrance.
+   */
+  private void closeRun(List<Integer> run, List<Integer> chosen) {
+    if (run.isEmpty())
+      return;
+
+    int pairs = run.size() / 2;
+    int[] group = new int[pairs];
+    Arrays.fill(group, NO_PARENT);
+    int groups = 0;
+    for (int i = 0; i < pairs; i++) {
+      if (group[i] != NO_PARENT)
+        continue;
+
+      group[i] = groups;
+      int inside = run.get(i * 2);
+      int outside = run.get(i * 2 + 1);
+
+      boolean[] sameInside = new boolean[pairs];
+      localSearch(clusterOf(inside), inside);
+      for (int j = i + 1; j < pairs; j++)
+        sameInside[j] = localDistanceTo(clusterOf(inside), run.get(j * 2)) != UNREACHABLE;
+
+      localSearch(clusterOf(outside), outside);
+      for (int j = i + 1; j < pairs; j++) {
+        if (group[j] == NO_PARENT && sameInside[j]
+            && localDistanceTo(clusterOf(outside), run.get(j * 2 + 1)) != UNREACHABLE)
+          group[j] = groups;
+      }
+      groups++;
+    }
+
+    for (int g = 0; g < groups; g++) {
+      int members = 0;
+      for (int i = 0; i < pairs; i++) {
+        if (group[i] == g)
+          members++;
+      }
+
+      int middle = members / 2;
+      for (int i = 0; i < pairs; i++) {
+        if (group[i] == g && middle-- == 0) {
+          chosen.add(run.get(i * 2));
+          chosen.add(run.get(i * 2 + 1));
+          break;
+        }
+      }
+    }
+    run.clear();
+  }
+
+  private void buildIntraCosts(int cluster) {
+    int[] e = entrances[cluster];
+    int n = e.length;
+    int[] costs = new int[n * n];
+    for (int i = 0; i < n; i++) {
+      localSearch(cluster, e[i]);
+      for (int j = 0; j < n; j++)
+        costs[i * n + j] = localDistanceTo(cluster, e[j]);
+    }
+    intraCost[cluster] = costs;
+  }
+
+  private boolean abstractPath(int from, int to, List<Integer> tiles) {
+    int fromCluster = clusterOf(from);
+    int toCluster = clusterOf(to);
+    int goal = map.getTileCount();
+
+    int[] toEntrances = entrances[toCluster];
+    int[] goalDistance = new int[toEntrances.length];
+    localSearch(toCluster, to);
+    for (int i = 0; i < toEntrances.length; i++)
+      goalDistance[i] = localDistanceTo(toCluster, toEntrances[i]);
+
+    prepare();
+    localSearch(fromCluster, from);
+    int[] fromEntrances = entrances[fromCluster];
+    for (int i = 0; i < fromEntrances.length; i++) {
+      int d = localDistanceTo(fromCluster, fromEntrances[i]);
+      if (d != UNREACHABLE)
+        relax(fromEntrances[i], from, d, to);
+    }
+
+    while (openSize > 0) {
+      int current = pop();
+      if (closedAt[current] == stamp)
+        continue;
+      closedAt[current] = stamp;
+
+      if (current == goal)
+        return refine(from, to, tiles);
+
+      int cluster = clusterOf(current);
+      int slot = slotOf(cluster, current);
+      int[] e = entrances[cluster];
+      int[] costs = intraCost[cluster];
+      for (int j = 0; j < e.length; j++) {
+        int c = costs[slot * e.length + j];
+        if (j != slot && c != UNREACHABLE)
+          relax(e[j], current, gScore[current] + c, to);
+      }
+      for (int p : partners[cluster][slot])
+        relax(p, current, gScore[current] + 1, to);
+
+      if (cluster == toCluster && goalDistance[slot] != UNREACHABLE)
+        relax(goal, current, gScore[current] + goalDistance[slot], to);
+    }
+    return false;
+  }
+
+  // Walks the abstract path back from the goal and fills in each step with tiles
+  private boolean refine(int from, int to, List<Integer> tiles) {
+    List<Integer> waypoints = new ArrayList<>();
+    for (int n = cameFrom[map.getTileCount()]; n != from; n = cameFrom[n])
+      waypoints.add(n);
+    waypoints.add(from);
+    Collections.reverse(waypoints);
+    waypoints.add(to);
+
+    for (int i = 1; i < waypoints.size(); i++) {
+      int a = waypoints.get(i - 1);
+      int b = waypoints.get(i);
+      if (clusterOf(a) != clusterOf(b))
+        tiles.add(b);
+      else if (a != b && !localPath(clusterOf(a), a, b, tiles))
+        return false;
+    }
+    return true;
+  }
+
+  private void relax(int node, int parent, int g, int to) {
+    if (closedAt[node] == stamp || (openedAt[node] == stamp && g >= gScore[node]))
+      return;
+
+    openedAt[node] = stamp;
+    gScore[node] = g;
+    cameFrom[node] = parent;
+    int h = node == map.getTileCount() ? 0 : map.distance(node, to);
+    push(g + h, node);
+  }
+
+  private void prepare() {
+    if (++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(openedAt, 0);
+      Arrays.fill(closedAt, 0);
+      stamp = 1;
+    }
+    openSize = 0;
+  }
+
+  // The open set holds (f << 32 | node) so a plain long heap orders it; stale entries are skipped
+  private void push(int f, int node) {
+    if (openSize == open.length)
+      open = Arrays.copyOf(open, openSize << 1);
+
+    long entry = ((long) f << 32) | node;
+    int pos = openSize++;
+    while (pos > 0) {
+      int parent = (pos - 1) >> 1;
+      if (open[parent] <= entry)
+        break;
+      open[pos] = open[parent];
+      pos = parent;
+    }
+    open[pos] = entry;
+  }
+
+  private int pop() {
+    int node = (int) open[0];
+    long last = open[--openSize];
+    int pos = 0;
+    int half = openSize >> 1;
+    while (pos < half) {
+      int child = (pos << 1) + 1;
+      if (child + 1 < openSize && open[child + 1] < open[child])
+        child++;
+      if (last <= open[child])
+        break;
+      open[pos] = open[child];
+      pos = child;
+    }
+    if (openSize > 0)
+      open[pos] = last;
+    return node;
+  }
+
+  // Appends the tiles after 'from' up to and including 'to', moving only inside the cluster
+  private boolean localPath(int cluster, int from, int to, List<Integer> tiles) {
+    localSearch(cluster, from);
+    if (localDistanceTo(cluster, to) == UNREACHABLE)
+      return false;
+
+    int mark = tiles.size();
+    for (int t = to; t != from; t = localCameFrom[localIndex(t)])
+      tiles.add(t);
+    Collections.reverse(tiles.subList(mark, tiles.size()));
+    return true;
+  }
+
+  private void localSearch(int cluster, int from) {
+    if (++localStamp == Integer.MAX_VALUE) {
+      Arrays.fill(localVisitedAt, 0);
+      localStamp = 1;
+    }
+
+    int head = 0;
+    int tail = 0;
+    int start = localIndex(from);
+    localVisitedAt[start] = localStamp;
+    localDistance[start] = 0;
+    localCameFrom[start] = NO_PARENT;
+    localQueue[tail++] = from;
+
+    while (head < tail) {
+      int current = localQueue[head++];
+      int currentDistance = localDistance[localIndex(current)];
+      for (int d = 0; d < HexCoordinate.NEIGHBOURS; d++) {
+        int next = map.neighbourIndex(current, d);
+        if (next < 0 || clusterOf(next) != cluster)
+          continue;
+
+        int local = localIndex(next);
+        if (localVisitedAt[local] == localStamp || !isOpen(next))
+          continue;
+
+        localVisitedAt[local] = localStamp;
+        localDistance[local] = currentDistance + 1;
+        localCameFrom[local] = current;
+        localQueue[tail++] = next;
+      }
+    }
+  }
+
+  private int localDistanceTo(int cluster, int tile) {
+    int local = localIndex(tile);
+    return clusterOf(tile) == cluster && localVisitedAt[local] == localStamp
+        ? localDistance[local] : UNREACHABLE;
+  }
+
+  private int slotOf(int cluster, int tile) {
+    int[] e = entrances[cluster];
+    for (int i = 0; i < e.length; i++) {
+      if (e[i] == tile)
+        return i;
+    }
+    return NO_PARENT;
+  }
+
+  private boolean isOpen(int tile) {
+    Hex h = map.getHex(tile);
+    return h != null && h.isPassable();
+  }
+
+  private int clusterX(int tile) {
+    return (tile % map.getMapWidth()) / CLUSTER_SIZE;
+  }
+
+  private int clusterY(int tile) {
+    return (tile / map.getMapWidth()) / CLUSTER_SIZE;
+  }
+
+  private int clusterOf(int tile) {
+    return clusterY(tile) * clustersWide + clusterX(tile);
+  }
+
+  private int localIndex(int tile) {
+    int col = tile % map.getMapWidth();
+    int row = tile / map.getMapWidth();
+    return (row % CLUSTER_SIZE) * CLUSTER_SIZE + (col % CLUSTER_SIZE);
+  }
+}
@@ -0,0 +1,168 @@
+package civ.core.ai;
+
+import java.util.Arrays;
+import civ.core.data.hex.Hex;
+import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+import civ.core.unit.Unit;
+
+/*
+ * Every hex a unit can reach with its remaining movement, found with one Dijkstra flood from the
+ * unit's hex. Entering a hex costs Hex.getMovementTotal, and hexes with an impassable feature
+ * are never entered. Lookups by tile index are O(1) once built.
+ */
+public class MovementRange {
+  private double[] cost = new double[0];
+  private int[] reachedAt = new int[0];
+  private int[] settledAt = new int[0];
+  private int[] heapPosition = new int[0];
+  private int[] heap = new int[0];
+  private int heapSize;
+  private int stamp = 0;
+
+  private int[] tiles = new int[0];
+  private int reachableCount;
+
+  private HexMap map;
+  private Unit unit;
+  private int origin = -1;
+  private double potential;
+  private int revision;
+
+  public boolean isBuiltFor(HexMap map, Unit unit) {
+    return this.map == map && this.unit == unit && this.origin == map.indexOf(unit.getPosition())
+        && this.potential == unit.getMovementPotential() && this.revision == map.getRevision();
+  }
+
+  public void build(HexMap map, Unit unit) {
+    this.map = map;
+    this.unit = unit;
+    this.origin = map.indexOf(unit.getPosition());
+    this.potential = unit.getMovementPotential();
+    this.revision = map.getRevision();
+
+    prepare(map.getTileCount());
+    if (origin < 0)
+      return;
+
+    reach(origin, 0D);
+    while (heapSize > 0) {
+      int current = pop();
+      settledAt[current] = stamp;
+      tiles[reachableCount++] = current;
+
+      for (int i = 0; i < HexCoordinate.NEIGHBOURS; i++) {
+        int neighbour = map.neighbourIndex(current, i);
+        if (neighbour < 0 || settledAt[neighbour] == stamp)
+          continue;
+
+        Hex neighbourHex = map.getHex(neighbour);
+        if (neighbourHex == null || !neighbourHex.isPassable())
+          continue;
+
+        double total = cost[current] + neighbourHex.getMovementTotal();
+        if (total > potential)
+          continue;
+
+        if (reachedAt[neighbour] != stamp)
+          reach(neighbour, total);
+        else if (total < cost[neighbour])
+          decreaseCost(neighbour, total);
+      }
+    }
+  }
+
+  private void prepare(int tileCount) {
+    if (cost.length != tileCount) {
+      cost = new double[tileCount];
+      reachedAt = new int[tileCount];
+      settledAt = new int[tileCount];
+      heapPosition = new int[tileCount];
+      heap = new int[tileCount];
+      tiles = new int[tileCount];
+      stamp = 0;
+    }
+    if (++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(reachedAt, 0);
+      Arrays.fill(settledAt, 0);
+      stamp = 1;
+    }
+    heapSize = 0;
+    reachableCount = 0;
+  }
+
+  public boolean canReach(int index) {
+    return index >= 0 && index < settledAt.length && settledAt[index] == stamp;
+  }
+
+  public boolean canReach(HexCoordinate h) {
+    return map != null && canReach(map.indexOf(h));
+  }
+
+  public double getCost(int index) {
+    return canReach(index) ? cost[index] : Double.POSITIVE_INFINITY;
+  }
+
+  public double getCost(HexCoordinate h) {
+    return map != null ? getCost(map.indexOf(h)) : Double.POSITIVE_INFINITY;
+  }
+
+  // Reachable tile indices, in order of increasing cost
+  public int[] getTiles() {
+    return Arrays.copyOf(tiles, reachableCount);
+  }
+
+  public int getReachableCount() {
+    return reachableCount;
+  }
+
+  private void reach(int tile, double c) {
+    reachedAt[tile] = stamp;
+    cost[tile] = c;
+    heap[heapSize] = tile;
+    siftUp(heapSize++);
+  }
+
+  private void decreaseCost(int tile, double c) {
+    cost[tile] = c;
+    siftUp(heapPosition[tile]);
+  }
+
+  private int pop() {
+    int top = heap[0];
+    heap[0] = heap[--heapSize];
+    siftDown(0);
+    return top;
+  }
+
+  private void siftUp(int pos) {
+    int tile = heap[pos];
+    while (pos > 0) {
+      int parent = (pos - 1) >> 1;
+      if (cost[heap[parent]] <= cost[tile])
+        break;
+      heap[pos] = heap[parent];
+      heapPosition[heap[pos]] = pos;
+      pos = parent;
+    }
+    heap[pos] = tile;
+    heapPosition[tile] = pos;
+  }
+
+  private void siftDown(int pos) {
+    int tile = heap[pos];
+    int half = heapSize >> 1;
+    while (pos < half) {
+      int child = (pos << 1) + 1;
+      if (child + 1 < heapSize && cost[heap[child + 1]] < cost[heap[child]])
+        child++;
+      if (cost[tile] <= cost[heap[child]])
+        break;
+      heap[pos] = heap[child];
+      heapPosition[heap[pos]] = pos;
+      pos = child;
+    }
+    heap[pos] = tile;
+    heapPosition[tile] = pos;
+  }
+}
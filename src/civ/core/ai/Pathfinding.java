@@ -1,18 +1,162 @@
 package civ.core.ai;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import civ.core.data.hex.Hex;
 import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+import civ.core.unit.Unit;
 
 public class Pathfinding {
+  private static final int PATH_CACHE_SIZE = 64;
+  private static final int HIERARCHICAL_MIN_TILES = 4096;
+
   AStar ap;
+  SearchTree unitTree;
+  MovementRange unitRange;
+  HierarchicalPathfinder hpa;
+  FlowFieldCache flowFields;
+
+  private final Map<PathKey, List<HexCoordinate>> pathCache;
+  private int cacheRevision;
 
   public Pathfinding() {
     ap = new AStar();
+    unitTree = new SearchTree();
+    unitRange = new MovementRange();
+
+    // Access ordered, so the least recently used path is evicted first
+    pathCache = new LinkedHashMap<PathKey, List<HexCoordinate>>(PATH_CACHE_SIZE, 0.75f, true) {
+      private static final long serialVersionUID = 2297036744616236021L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<PathKey, List<HexCoordinate>> eldest) {
+        return size() > PATH_CACHE_SIZE;
+      }
+    };
   }
 
-  public List<HexCoordinate> findPath(Map<Integer, Hex> map, HexCoordinate from, HexCoordinate to) {
+  public List<HexCoordinate> findPath(HexMap map, HexCoordinate from, HexCoordinate to) {
+    if (isLongDistance(map, from, to)) {
+      // The cluster graph is an approximation, so an empty answer is checked with a full search,
+      // unless the two tiles are in separate areas and a full search would only flood one of them
+      HierarchicalPathfinder h = getHierarchicalPathfinder(map);
+      List<HexCoordinate> path = h.findPath(from, to);
+      if (!path.isEmpty() || !h.mayConnect(from, to))
+        return path;
+    }
     return ap.aStar(map, from, to);
   }
+
+  /*
+   * Large maps route anything spanning more than a cluster through the cluster graph. Not on maps
+   * generated on demand, where building the graph would generate every tile.
+   */
+  private boolean isLongDistance(HexMap map, HexCoordinate from, HexCoordinate to) {
+    if (map.getTileCount() < HIERARCHICAL_MIN_TILES || map.isGeneratedOnDemand() || from == null
+        || to == null)
+      return false;
+
+    int start = map.indexOf(from);
+    int end = map.indexOf(to);
+    return start >= 0 && end >= 0
+        && map.distance(start, end) > HierarchicalPathfinder.CLUSTER_SIZE;
+  }
+
+  private HierarchicalPathfinder getHierarchicalPathfinder(HexMap map) {
+    if (hpa == null || hpa.getMap() != map)
+      hpa = new HierarchicalPathfinder(map);
+    return hpa;
+  }
+
+  /*
+   * Path for a unit standing on 'from'. Answers come from a search tree rooted at the unit, or on
+   * large maps from the cluster graph for targets more than a cluster away, and an LRU cache of
+   * recent answers, all dropped as soon as the map revision moves on.
+   */
+  public List<HexCoordinate> findUnitPath(HexMap map, Unit unit, HexCoordinate from,
+      HexCoordinate to) {
+    if (from == null || to == null)
+      return Collections.emptyList();
+
+    int origin = map.indexOf(from);
+    int target = map.indexOf(to);
+    if (origin < 0 || target < 0 || map.getHex(origin) == null)
+      return Collections.emptyList();
+
+    if (cacheRevision != map.getRevision()) {
+      pathCache.clear();
+      cacheRevision = map.getRevision();
+    }
+
+    PathKey key = new PathKey(unit, origin, target, cacheRevision);
+    List<HexCoordinate> path = pathCache.get(key);
+    if (path == null) {
+      if (isLongDistance(map, from, to)) {
+        // Flooding a large map for one far target costs more than the cluster graph search
+        path = Collections.unmodifiableList(findPath(map, from, to));
+      } else if (map.isGeneratedOnDemand()) {
+        // The tree floods the whole map, a single search only touches the tiles it needs
+        path = Collections.unmodifiableList(ap.aStar(map, from, to));
+      } else {
+        if (!unitTree.isBuiltFor(map, unit, origin))
+          unitTree.build(map, unit, origin);
+        path = Collections.unmodifiableList(unitTree.pathTo(target));
+      }
+      pathCache.put(key, path);
+    }
+    return path;
+  }
+
+  /*
+   * Hexes the unit can still reach this turn. Rebuilt only once the unit has moved, its movement
+   * has changed (spent or refreshed at the next turn) or the map has changed.
+   */
+  public MovementRange getMovementRange(HexMap map, Unit unit) {
+    if (!unitRange.isBuiltFor(map, unit))
+      unitRange.build(map, unit);
+    return unitRange;
+  }
+
+  /*
+   * Shared field for every unit heading to 'target'; each unit reads its next step from it
+   * instead of running its own search.
+   */
+  public FlowField getFlowField(HexMap map, HexCoordinate target) {
+    if (flowFields == null || flowFields.getMap() != map)
+      flowFields = new FlowFieldCache(map);
+    return flowFields.get(target);
+  }
+
+  private static final class PathKey {
+    private final Unit unit;
+    private final int origin;
+    private final int target;
+    private final int revision;
+
+    PathKey(Unit unit, int origin, int target, int revision) {
+      this.unit = unit;
+      this.origin = origin;
+      this.target = target;
+      this.revision = revision;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof PathKey))
+        return false;
+
+      PathKey k = (PathKey) o;
+      return unit == k.unit && origin == k.origin && target == k.target && revision == k.revision;
+    }
+
+    @Override
+    public int hashCode() {
+      int h = System.identityHashCode(unit);
+      h = 31 * h + origin;
+      h = 31 * h + target;
+      return 31 * h + revision;
+    }
+  }
 }
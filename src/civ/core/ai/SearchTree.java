@@ -0,0 +1,94 @@
+package civ.core.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import civ.core.data.hex.Hex;
+import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+import civ.core.unit.Unit;
+
+/*
+ * Shortest path tree from a single origin hex, built with one breadth first search over the map.
+ * Once built, the path to any target is a walk up the tree, so hovering over different targets
+ * while moving a unit never starts a new search. Uses the same step cost and passability rules
+ * as AStar, and returns paths in the same form.
+ */
+public class SearchTree {
+  private static final int NO_PARENT = -1;
+
+  private int[] cameFrom = new int[0];
+  private int[] visitedAt = new int[0];
+  private int[] queue = new int[0];
+  private int stamp = 0;
+
+  private HexMap map;
+  private Unit unit;
+  private int origin = -1;
+  private int revision;
+
+  public boolean isBuiltFor(HexMap map, Unit unit, int origin) {
+    return this.map == map && this.unit == unit && this.origin == origin
+        && this.revision == map.getRevision();
+  }
+
+  public void build(HexMap map, Unit unit, int origin) {
+    this.map = map;
+    this.unit = unit;
+    this.origin = origin;
+    this.revision = map.getRevision();
+
+    int tileCount = map.getTileCount();
+    if (cameFrom.length != tileCount) {
+      cameFrom = new int[tileCount];
+      visitedAt = new int[tileCount];
+      queue = new int[tileCount];
+      stamp = 0;
+    }
+    if (++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(visitedAt, 0);
+      stamp = 1;
+    }
+
+    int head = 0;
+    int tail = 0;
+    visitedAt[origin] = stamp;
+    cameFrom[origin] = NO_PARENT;
+    queue[tail++] = origin;
+
+    while (head < tail) {
+      int current = queue[head++];
+      for (int i = 0; i < HexCoordinate.NEIGHBOURS; i++) {
+        int neighbour = map.neighbourIndex(current, i);
+        if (neighbour < 0 || visitedAt[neighbour] == stamp)
+          continue;
+
+        Hex neighbourHex = map.getHex(neighbour);
+        if (neighbourHex == null || !neighbourHex.isPassable())
+          continue;
+
+        visitedAt[neighbour] = stamp;
+        cameFrom[neighbour] = current;
+        queue[tail++] = neighbour;
+      }
+    }
+  }
+
+  public boolean reaches(int target) {
+    return target >= 0 && visitedAt[target] == stamp;
+  }
+
+  public List<HexCoordinate> pathTo(int target) {
+    if (!reaches(target))
+      return Collections.emptyList();
+
+    List<HexCoordinate> path = new ArrayList<>();
+    path.add(map.getCoordinate(target));
+    for (int current = cameFrom[target]; current != NO_PARENT; current = cameFrom[current]) {
+      if (current != origin)
+        path.add(map.getCoordinate(current));
+    }
+    return path;
+  }
+}
@@ -1,5 +1,6 @@
 package civ.core.data;
 
+import java.awt.Polygon;
 import civ.core.data.hex.FractionalHex;
 import civ.core.data.hex.HexCoordinate;
 
@@ -12,10 +13,20 @@ public class Layout {
   public final Point size;
   public final Point origin;
 
+  // Corner offsets from a hex centre, fixed by the orientation and size
+  private final double[] cornerX = new double[POLYGON_POINTS];
+  private final double[] cornerY = new double[POLYGON_POINTS];
+
   public Layout(Orientation orientation, Point size, Point origin) {
     this.orientation = orientation;
     this.size = size;
     this.origin = origin;
+
+    for (int i = 0; i < POLYGON_POINTS; i++) {
+      double angle = 2.0 * Math.PI * (orientation.startAngle - i) / 6;
+      cornerX[i] = size.x * Math.cos(angle);
+      cornerY[i] = size.y * Math.sin(angle);
+    }
   }
   public Point hexToPixel(HexCoordinate h) {
     double x = (orientation.f0 * h.q + orientation.f1 * h.r) * size.x;
@@ -30,21 +41,40 @@ public class Layout {
     return FractionalHex.hexRound(new FractionalHex(q, r, -q - r));
   }
 
+  public long pixelToKey(double x, double y) {
+    double px = (x - origin.x) / size.x;
+    double py = (y - origin.y) / size.y;
+    double q = orientation.b0 * px + orientation.b1 * py;
+    double r = orientation.b2 * px + orientation.b3 * py;
+    return FractionalHex.roundToKey(q, r, -q - r);
+  }
+
   public Point hexCornerOffset(int corner) {
-    double angle = 2.0 * Math.PI * (orientation.startAngle - corner) / 6;
-    return new Point(size.x * Math.cos(angle), size.y * Math.sin(angle));
+    return new Point(cornerX[corner], cornerY[corner]);
   }
 
   public Point[] polygonCorners(HexCoordinate h) {
     Point[] corners = new Point[POLYGON_POINTS];
     Point center = hexToPixel(h);
     for (int i = 0; i < POLYGON_POINTS; i++) {
-      Point offset = hexCornerOffset(i);
-      corners[i] = new Point(center.x + offset.x, center.y + offset.y);
+      corners[i] = new Point(center.x + cornerX[i], center.y + cornerY[i]);
     }
     return corners;
   }
 
+  /*
+   * Resets poly to the outline of h, shifted by (dx, dy). Gives the same points as polygonCorners
+   * but allocates nothing once poly has held six points.
+   */
+  public void polygon(HexCoordinate h, int dx, int dy, Polygon poly) {
+    double centerX = (orientation.f0 * h.q + orientation.f1 * h.r) * size.x + origin.x;
+    double centerY = (orientation.f2 * h.q + orientation.f3 * h.r) * size.y + origin.y;
+    poly.reset();
+    for (int i = 0; i < POLYGON_POINTS; i++) {
+      poly.addPoint((int) (centerX + cornerX[i]) + dx, (int) (centerY + cornerY[i]) + dy);
+    }
+  }
+
   public Point getPolygonPositionEstimate(HexCoordinate h) {
     return hexToPixel(h);
   }
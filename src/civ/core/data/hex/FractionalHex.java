@@ -1,5 +1,7 @@
 package civ.core.data.hex;
 
+import civ.core.data.map.HexMap;
+
 public class FractionalHex {
   public final double q;
   public final double r;
@@ -12,18 +14,26 @@ public class FractionalHex {
   }
 
   public static HexCoordinate hexRound(FractionalHex h) {
-    int q = (int) Math.round(h.q);
-    int r = (int) Math.round(h.r);
-    int s = (int) Math.round(h.s);
-    double qDiff = Math.abs(q - h.q);
-    double rDiff = Math.abs(r - h.r);
-    double sDiff = Math.abs(s - h.s);
+    long key = roundToKey(h.q, h.r, h.s);
+    int q = HexMap.keyQ(key);
+    int r = HexMap.keyR(key);
+    return new HexCoordinate(q, r, -q - r);
+  }
+
+  // Rounds to the nearest hex and returns it as a HexMap.key, without allocating
+  public static long roundToKey(double fq, double fr, double fs) {
+    int q = (int) Math.round(fq);
+    int r = (int) Math.round(fr);
+    int s = (int) Math.round(fs);
+    double qDiff = Math.abs(q - fq);
+    double rDiff = Math.abs(r - fr);
+    double sDiff = Math.abs(s - fs);
     if ((qDiff > rDiff) && (qDiff > sDiff)) {
       q = -r - s;
     } else if (rDiff > sDiff) {
       r = -q - s;
     }
-    return new HexCoordinate(q, r, -q - r);
+    return HexMap.key(q, r);
   }
 
 }
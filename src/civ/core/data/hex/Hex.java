@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import civ.core.data.utils.Pair;
+import civ.core.event.callback.TerrainChangeCallbackI;
+import civ.core.event.callback.YieldChangeCallbackI;
 import civ.core.map.cities.City;
 import civ.core.map.civilization.BaseCivilization;
 import civ.core.map.improvement.Improvement;
@@ -30,6 +32,17 @@ public class Hex extends HexCoordinate {
   private List<Feature> features = new ArrayList<>();
   private Unit[] hexUnits = new Unit[1 + CIV_UNIT + MIL_UNIT];
 
+  private static final YieldType[] YIELD_TYPES = YieldType.values();
+
+  // Yield totals by YieldType ordinal, only recomputed after the landscape, features or improvement
+  // change. A tile worked by a city is kept up to date so changes can be passed on to it
+  private final int[] yields = new int[YIELD_TYPES.length];
+  private boolean yieldsValid = false;
+  private YieldChangeCallbackI workedBy = null;
+
+  // The map holding this hex, told whenever its terrain is edited in place
+  private TerrainChangeCallbackI terrainListener = null;
+
   public Hex(int q, int r, int s) {
     super(q, r, s);
   }
@@ -49,10 +62,6 @@ public class Hex extends HexCoordinate {
     return new Hex(q + b.q, r + b.r, s + b.s);
   }
   
-  private Hex subtract(HexCoordinate b) {
-    return new Hex(q - b.q, r - b.r, s - b.s);
-  }
-
   public Hex scale(int k) {
     return new Hex(q * k, r * k, s * k);
   }
@@ -61,8 +70,8 @@ public class Hex extends HexCoordinate {
     return (Math.abs(hex.q) + Math.abs(hex.r) + Math.abs(hex.s)) / 2;
   }
 
-  public int distance(Hex b) {
-    return length(subtract(b));
+  public int distance(HexCoordinate b) {
+    return (Math.abs(q - b.q) + Math.abs(r - b.r) + Math.abs(s - b.s)) / 2;
   }
 
   public HexCoordinate direction(int direction) {
@@ -101,6 +110,7 @@ public class Hex extends HexCoordinate {
 
   public void setLandscape(Landscape type) {
     this.type = type;
+    terrainChanged();
   }
 
   public Improvement getImprovement() {
@@ -113,38 +123,131 @@ public class Hex extends HexCoordinate {
   // }
   public void setAllFeatures(List<Feature> feature) {
     this.features.addAll(feature);
+    terrainChanged();
   }
 
   public void addFeature(Feature feature) {
     this.features.add(feature);
+    terrainChanged();
   }
 
   public void removeFeature(Feature feature) {
-    if (this.features.contains(feature))
+    if (this.features.contains(feature)) {
       this.features.remove(feature);
-    else
+      terrainChanged();
+    } else {
       System.out.println("Cannot remove feature, does not exist");
+    }
   }
 
   public Hex setImprovement(Improvement i) {
     tileImprovement = i;
+    terrainChanged();
     return this;
   }
 
   public int getYieldTotal(YieldType yt) {
+    if (!yieldsValid)
+      computeYields();
+    return yields[yt.ordinal()];
+  }
+
+  public boolean isWorked() {
+    return workedBy != null;
+  }
+
+  /*
+   * A tile is worked by at most one city, which is called with the change to each yield whenever
+   * it changes. Returns false, and leaves the tile alone, if another city already works it, so
+   * overlapping cities never count a tile twice.
+   */
+  public boolean setWorkedBy(YieldChangeCallbackI city) {
+    if (workedBy != null)
+      return false;
+    if (!yieldsValid)
+      computeYields();
+    workedBy = city;
+    return true;
+  }
+
+  /*
+   * Hands the city working this tile to replacement, which is taking its place on the map, and
+   * passes the city the difference between the two tiles' yields. If another city already works
+   * replacement, the city just loses this tile's yields.
+   */
+  public void handWorkTo(Hex replacement) {
+    YieldChangeCallbackI city = workedBy;
+    if (city == null || replacement == this)
+      return;
+
+    workedBy = null;
+    boolean handed = replacement.setWorkedBy(city);
+    for (YieldType yt : YIELD_TYPES) {
+      int delta = (handed ? replacement.yields[yt.ordinal()] : 0) - yields[yt.ordinal()];
+      if (delta != 0)
+        city.invoke(yt, delta);
+    }
+  }
+
+  public void setTerrainListener(TerrainChangeCallbackI listener) {
+    this.terrainListener = listener;
+  }
+
+  // The landscape, features or improvement changed
+  private void terrainChanged() {
+    yieldsChanged();
+    if (terrainListener != null)
+      terrainListener.invoke(this);
+  }
+
+  private void yieldsChanged() {
+    if (workedBy == null) {
+      yieldsValid = false;
+      return;
+    }
+
+    // Worked tiles' yields are always valid, so the old values are still in the array
+    for (YieldType yt : YIELD_TYPES) {
+      int old = yields[yt.ordinal()];
+      int now = computeYield(yt);
+      yields[yt.ordinal()] = now;
+      if (now != old)
+        workedBy.invoke(yt, now - old);
+    }
+  }
+
+  private void computeYields() {
+    for (YieldType yt : YIELD_TYPES)
+      yields[yt.ordinal()] = computeYield(yt);
+    yieldsValid = true;
+  }
+
+  private int computeYield(YieldType yt) {
+    if (this.type == null)
+      return 0;
+
+    int total = 0;
     switch (yt) {
       case FOOD:
-        return this.type.getFoodYield()
-            + this.features.stream().mapToInt(x -> x.getFoodMod()).sum();
+        total = this.type.getFoodYield();
+        for (int i = 0; i < features.size(); i++)
+          total += features.get(i).getFoodMod();
+        return tileImprovement != null ? total + tileImprovement.getFood() : total;
       case PRODUCTION:
-        return this.type.getProductionYield()
-            + this.features.stream().mapToInt(x -> x.getProductionMod()).sum();
+        total = this.type.getProductionYield();
+        for (int i = 0; i < features.size(); i++)
+          total += features.get(i).getProductionMod();
+        return tileImprovement != null ? total + tileImprovement.getProduction() : total;
       case SCIENCE:
-        return this.type.getScienceYield()
-            + this.features.stream().mapToInt(x -> x.getScienceMod()).sum();
+        total = this.type.getScienceYield();
+        for (int i = 0; i < features.size(); i++)
+          total += features.get(i).getScienceMod();
+        return tileImprovement != null ? total + tileImprovement.getScience() : total;
       case GOLD:
-        return this.type.getGoldYield()
-            + this.features.stream().mapToInt(x -> x.getGoldMod()).sum();
+        total = this.type.getGoldYield();
+        for (int i = 0; i < features.size(); i++)
+          total += features.get(i).getGoldMod();
+        return tileImprovement != null ? total + tileImprovement.getGold() : total;
       default:
         return 0;
     }
@@ -161,6 +264,14 @@ public class Hex extends HexCoordinate {
       return 1D;
   }
 
+  public boolean isPassable() {
+    for (int i = 0; i < features.size(); i++) {
+      if (!features.get(i).getPassable())
+        return false;
+    }
+    return true;
+  }
+
   public boolean canSetMilitary() {
     return hexUnits[MIL_UNIT] == null;
   }
@@ -11,14 +11,10 @@ public class HexCoordinate {
   public final int r;
   public final int s;
 
-  public final Random rnd;
-  
   public HexCoordinate(int q, int r, int s) {
     this.q = q;
     this.r = r;
     this.s = s;
-    
-    rnd = new Random();
   }
 
   public HexCoordinate(int q, int r) {
@@ -43,15 +39,25 @@ public class HexCoordinate {
     return new HexCoordinate(q + b.q, r + b.r, s + b.s);
   }
 
-  //This can get stuck in an infinte loop but we can deal with it later
-  public HexCoordinate getValidRandomNeighbour(boolean isMilitary) {
-    HexCoordinate newHex;
-    do {
-      newHex = add(Hex.DIRECTIONS[rnd.nextInt(NEIGHBOURS - 1)]);
-    } while (hexMap.getHex(newHex) == null
-        || ((isMilitary && !hexMap.getHex(newHex).canSetMilitary())
-            || (!isMilitary && !hexMap.getHex(newHex).canSetCivilian())));
-    return newHex;
+  // A random neighbour the unit can be placed on, or null if there is no room next to this hex
+  public HexCoordinate getValidRandomNeighbour(Random rnd, boolean isMilitary) {
+    int index = hexMap.indexOf(this);
+    Hex[] valid = new Hex[NEIGHBOURS];
+    int count = 0;
+    for (int i = 0; i < NEIGHBOURS; i++) {
+      Hex neighbour;
+      if (index >= 0) {
+        int tile = hexMap.neighbourIndex(index, i);
+        neighbour = tile >= 0 ? hexMap.getHex(tile) : null;
+      } else {
+        neighbour = hexMap.getHex(add(Hex.DIRECTIONS[i]));
+      }
+
+      if (neighbour != null
+          && (isMilitary ? neighbour.canSetMilitary() : neighbour.canSetCivilian()))
+        valid[count++] = neighbour;
+    }
+    return count > 0 ? valid[rnd.nextInt(count)] : null;
   }
 
   public HexCoordinate getPosition() {
@@ -0,0 +1,104 @@
+package civ.core.data.map;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import civ.core.data.hex.Hex;
+import civ.core.event.callback.TerrainChangeCallbackI;
+import civ.core.map.generation.TerrainGeneration;
+
+/*
+ * Tiles held in CHUNK_SIZE x CHUNK_SIZE blocks that are only generated the first time one of
+ * their tiles is read or written. Generation is deterministic for a seed, so the order chunks are
+ * touched in makes no difference to the map.
+ */
+class ChunkedTileStore implements TileStore {
+  static final int CHUNK_SIZE = 32;
+
+  private final int mapWidth;
+  private final int mapHeight;
+  private final int chunksWide;
+  private final TerrainChangeCallbackI terrainListener;
+
+  // Chunks can be touched by the render and game threads at once, so they are published safely
+  private AtomicReferenceArray<Hex[]> chunks;
+  private TerrainGeneration tg;
+
+  ChunkedTileStore(int mapWidth, int mapHeight, TerrainChangeCallbackI terrainListener) {
+    this.mapWidth = mapWidth;
+    this.terrainListener = terrainListener;
+    this.mapHeight = mapHeight;
+    this.chunksWide = (mapWidth + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    int chunksHigh = (mapHeight + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    this.chunks = new AtomicReferenceArray<>(chunksWide * chunksHigh);
+  }
+
+  @Override
+  public Hex get(int index) {
+    if (tg == null)
+      return null;
+
+    int row = index / mapWidth;
+    int col = index - row * mapWidth;
+    int chunk = (row / CHUNK_SIZE) * chunksWide + col / CHUNK_SIZE;
+    return chunk(chunk)[localIndex(chunk, row, col)];
+  }
+
+  @Override
+  public void set(int index, Hex h) {
+    if (tg == null)
+      return;
+
+    int row = index / mapWidth;
+    int col = index - row * mapWidth;
+    int chunk = (row / CHUNK_SIZE) * chunksWide + col / CHUNK_SIZE;
+    chunk(chunk)[localIndex(chunk, row, col)] = h;
+  }
+
+  @Override
+  public void populate(TerrainGeneration tg) {
+    this.chunks = new AtomicReferenceArray<>(chunks.length());
+    this.tg = tg;
+  }
+
+  @Override
+  public int getGeneratedTileCount() {
+    int count = 0;
+    for (int i = 0; i < chunks.length(); i++) {
+      Hex[] tiles = chunks.get(i);
+      if (tiles != null)
+        count += tiles.length;
+    }
+    return count;
+  }
+
+  private int localIndex(int chunk, int row, int col) {
+    int rowStart = (chunk / chunksWide) * CHUNK_SIZE;
+    int colStart = (chunk % chunksWide) * CHUNK_SIZE;
+    return (row - rowStart) * chunkWidth(colStart) + (col - colStart);
+  }
+
+  // Chunks on the right and bottom edges can be smaller than CHUNK_SIZE
+  private int chunkWidth(int colStart) {
+    return Math.min(CHUNK_SIZE, mapWidth - colStart);
+  }
+
+  private Hex[] chunk(int chunk) {
+    Hex[] tiles = chunks.get(chunk);
+    return tiles != null ? tiles : generate(chunk);
+  }
+
+  private synchronized Hex[] generate(int chunk) {
+    Hex[] tiles = chunks.get(chunk);
+    if (tiles == null) {
+      int rowStart = (chunk / chunksWide) * CHUNK_SIZE;
+      int colStart = (chunk % chunksWide) * CHUNK_SIZE;
+      int rows = Math.min(CHUNK_SIZE, mapHeight - rowStart);
+      tiles = tg.generateRegion(colStart, rowStart, chunkWidth(colStart), rows);
+      for (Hex h : tiles) {
+        if (h != null)
+          h.setTerrainListener(terrainListener);
+      }
+      chunks.set(chunk, tiles);
+    }
+    return tiles;
+  }
+}
@@ -0,0 +1,41 @@
+package civ.core.data.map;
+
+import civ.core.data.hex.Hex;
+import civ.core.event.callback.TerrainChangeCallbackI;
+import civ.core.map.generation.TerrainGeneration;
+
+class DenseTileStore implements TileStore {
+  private final TerrainChangeCallbackI terrainListener;
+  private Hex[] tiles;
+  private boolean populated = false;
+
+  DenseTileStore(int tileCount, TerrainChangeCallbackI terrainListener) {
+    this.terrainListener = terrainListener;
+    tiles = new Hex[tileCount];
+  }
+
+  @Override
+  public Hex get(int index) {
+    return tiles[index];
+  }
+
+  @Override
+  public void set(int index, Hex h) {
+    tiles[index] = h;
+  }
+
+  @Override
+  public void populate(TerrainGeneration tg) {
+    tiles = tg.generateMap();
+    populated = true;
+    for (Hex h : tiles) {
+      if (h != null)
+        h.setTerrainListener(terrainListener);
+    }
+  }
+
+  @Override
+  public int getGeneratedTileCount() {
+    return populated ? tiles.length : 0;
+  }
+}
@@ -1,50 +1,261 @@
 package civ.core.data.map;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import civ.core.data.hex.Hex;
 import civ.core.data.hex.HexCoordinate;
+import civ.core.event.callback.TerrainChangeCallbackI;
+import civ.core.event.callback.TileChangeCallbackI;
+import civ.core.map.generation.GenerationSettings;
 import civ.core.map.generation.TerrainGeneration;
 
 public class HexMap {
-  private static final short HASH_CONSTANT_Q = 0x32B;
-  private static final short HASH_CONSTANT_R = 0x21D;
+  // Passed to tile listeners when every tile may have changed, e.g. after populateMap
+  public static final int ALL_TILES = -1;
+
+  private static final int HASH_SHIFT = 16;
+  private static final int HASH_MASK = 0xFFFF;
+  private static final long KEY_MASK = 0xFFFFFFFFL;
+
+  // Axial offsets for each neighbour direction, in the same order as Hex.DIRECTIONS
+  private static final int[] DIRECTION_Q = {1, 1, 0, -1, -1, 0};
+  private static final int[] DIRECTION_R = {0, -1, -1, 0, 1, 1};
+
+  // Stored in the adjacency table for a direction that leads off the map
+  public static final int NO_NEIGHBOUR = -1;
+
+  public enum Storage {
+    DENSE, // Flat array, one slot per tile
+    CHUNKED // Blocks of tiles generated the first time they are used, for very large maps
+  }
 
   private TerrainGeneration tg;
 
   private final int mapWidth;
   private final int mapHeight;
-  private Map<Integer, Hex> map;
+  private final int tileCount;
+
+  // Tiles are indexed by offset row/column: index = r * mapWidth + (q + ((r + 1) >> 1))
+  private final Storage storage;
+  private final TileStore tiles;
+
+  // Six neighbour indices per tile, neighbours[index * 6 + direction], built by populateMap
+  private int[] neighbours;
+
+  // Bumped whenever a tile is replaced or its terrain edited, so derived data (paths, caches) can
+  // tell it is stale. Units are set on the stored hexes directly and don't count as a change
+  private int revision = 0;
+  private final List<TileChangeCallbackI> tileListeners = new ArrayList<>();
+  private final TerrainChangeCallbackI terrainListener = this::terrainChanged;
 
   public HexMap(final int mapWidth, final int mapHeight) {
-    this.mapWidth = mapWidth;
-    this.mapHeight = mapHeight;
+    this(mapWidth, mapHeight, Storage.DENSE);
+  }
+
+  public HexMap(final int mapWidth, final int mapHeight, final Storage storage) {
+    this(new GenerationSettings(mapWidth, mapHeight), storage);
+  }
+
+  public HexMap(final GenerationSettings settings) {
+    this(settings, Storage.DENSE);
+  }
 
-    map = new HashMap<>(mapWidth * mapHeight);
+  public HexMap(final GenerationSettings settings, final Storage storage) {
+    this.mapWidth = settings.getWidth();
+    this.mapHeight = settings.getHeight();
+    this.tileCount = mapWidth * mapHeight;
+
+    this.storage = storage;
+    switch (storage) {
+      case CHUNKED:
+        tiles = new ChunkedTileStore(mapWidth, mapHeight, terrainListener);
+        break;
+      default:
+        tiles = new DenseTileStore(tileCount, terrainListener);
+        break;
+    }
 
-    tg = new TerrainGeneration(mapWidth, mapHeight);
+    tg = new TerrainGeneration(settings);
   }
 
   public void populateMap() {
-    map = tg.generateMap();
+    tiles.populate(tg);
+
+    // Building the table reads every tile, which would generate the whole of a chunked map
+    neighbours = null;
+    if (!isGeneratedOnDemand())
+      buildNeighbours();
+    revision++;
+    tileChanged(ALL_TILES);
   }
 
+  // Bijective for |q|, |r| < 32768, which covers any map up to 32768 tiles wide
   public static <T extends HexCoordinate> int hash(T t) {
-    return ((t.q * HASH_CONSTANT_Q) + t.r) * HASH_CONSTANT_R;
+    return (t.q << HASH_SHIFT) | (t.r & HASH_MASK);
+  }
+
+  // Packs both axial coordinates into one long, so every (q, r) pair has a distinct key
+  public static long key(int q, int r) {
+    return ((long) q << 32) | (r & KEY_MASK);
+  }
+
+  public static <T extends HexCoordinate> long key(T t) {
+    return key(t.q, t.r);
+  }
+
+  public static int keyQ(long key) {
+    return (int) (key >> 32);
+  }
+
+  public static int keyR(long key) {
+    return (int) key;
+  }
+
+  public int indexOf(int q, int r) {
+    if (r < 0 || r >= mapHeight)
+      return -1;
+
+    int col = q + ((r + 1) >> 1);
+    if (col < 0 || col >= mapWidth)
+      return -1;
+
+    return r * mapWidth + col;
+  }
+
+  public <T extends HexCoordinate> int indexOf(T t) {
+    return indexOf(t.q, t.r);
+  }
+
+  public int qOf(int index) {
+    int r = index / mapWidth;
+    return (index - r * mapWidth) - ((r + 1) >> 1);
+  }
+
+  public int rOf(int index) {
+    return index / mapWidth;
+  }
+
+  private void buildNeighbours() {
+    int[] table = new int[tileCount * HexCoordinate.NEIGHBOURS];
+    for (int index = 0; index < tileCount; index++) {
+      int base = index * HexCoordinate.NEIGHBOURS;
+      for (int i = 0; i < HexCoordinate.NEIGHBOURS; i++) {
+        int neighbour = computeNeighbourIndex(index, i);
+        table[base + i] = neighbour >= 0 && tiles.get(neighbour) != null ? neighbour : NO_NEIGHBOUR;
+      }
+    }
+    neighbours = table;
+  }
+
+  public int neighbourIndex(int index, int direction) {
+    if (neighbours != null)
+      return neighbours[index * HexCoordinate.NEIGHBOURS + direction];
+    return computeNeighbourIndex(index, direction);
+  }
+
+  private int computeNeighbourIndex(int index, int direction) {
+    int r = rOf(index);
+    int q = (index - r * mapWidth) - ((r + 1) >> 1);
+    return indexOf(q + DIRECTION_Q[direction], r + DIRECTION_R[direction]);
+  }
+
+  // Fills out with the on-map neighbours of a tile and returns how many there are
+  public int neighbours(int index, int[] out) {
+    int count = 0;
+    for (int i = 0; i < HexCoordinate.NEIGHBOURS; i++) {
+      int neighbour = neighbourIndex(index, i);
+      if (neighbour >= 0)
+        out[count++] = neighbour;
+    }
+    return count;
+  }
+
+  public static int rangeSize(int range) {
+    return 3 * range * (range + 1) + 1;
+  }
+
+  /*
+   * Fills out with every on-map tile within range of centre and returns how many there are. out
+   * must hold at least rangeSize(range) entries.
+   */
+  public int tilesInRange(int centre, int range, int[] out) {
+    int cq = qOf(centre);
+    int cr = rOf(centre);
+    int count = 0;
+    for (int dq = -range; dq <= range; dq++) {
+      for (int dr = Math.max(-range, -dq - range); dr <= Math.min(range, -dq + range); dr++) {
+        int index = indexOf(cq + dq, cr + dr);
+        if (index >= 0 && tiles.get(index) != null)
+          out[count++] = index;
+      }
+    }
+    return count;
+  }
+
+  public int[] tilesInRange(int centre, int range) {
+    int[] out = new int[rangeSize(range)];
+    int count = tilesInRange(centre, range, out);
+    return count == out.length ? out : Arrays.copyOf(out, count);
+  }
+
+  public int distance(int a, int b) {
+    int dq = qOf(a) - qOf(b);
+    int dr = rOf(a) - rOf(b);
+    return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
   }
 
   public void setHex(Hex h) {
-    map.replace(hash(h), h);
+    setHex(h, h);
   }
 
+  // Replaces the hex at hPos. A city working the old hex works the new one in its place
   public void setHex(HexCoordinate hPos, Hex h) {
-    map.replace(hash(hPos), h);
+    int index = indexOf(hPos);
+    Hex old = index >= 0 ? tiles.get(index) : null;
+    if (old != null) {
+      old.handWorkTo(h);
+      tiles.set(index, h);
+      h.setTerrainListener(terrainListener);
+      revision++;
+      tileChanged(index);
+    }
+  }
+
+  // A hex on the map had its landscape, features or improvement edited in place
+  private void terrainChanged(Hex h) {
+    int index = indexOf(h);
+    if (index >= 0 && tiles.get(index) == h) {
+      revision++;
+      tileChanged(index);
+    }
+  }
+
+  public void addTileListener(TileChangeCallbackI listener) {
+    tileListeners.add(listener);
+  }
+
+  private void tileChanged(int index) {
+    for (TileChangeCallbackI listener : tileListeners)
+      listener.invoke(index);
   }
 
-  public Map<Integer, Hex> getMap() {
-    return map;
+  // True when tiles are only generated once something reads them
+  public boolean isGeneratedOnDemand() {
+    return storage == Storage.CHUNKED;
+  }
+
+  // Tiles generated so far, which on a map generated on demand is only the chunks read or written
+  public int getGeneratedTileCount() {
+    return tiles.getGeneratedTileCount();
+  }
+
+  public GenerationSettings getSettings() {
+    return tg.getSettings();
+  }
+
+  public int getRevision() {
+    return this.revision;
   }
 
   public int getMapWidth() {
@@ -55,8 +266,27 @@ public class HexMap {
     return this.mapHeight;
   }
 
+  public int getTileCount() {
+    return this.tileCount;
+  }
+
   public <T extends HexCoordinate> Hex getHex(T t) {
-    return map.get(hash(t));
+    int index = indexOf(t.q, t.r);
+    return index >= 0 ? tiles.get(index) : null;
+  }
+
+  public Hex getHex(int index) {
+    return tiles.get(index);
+  }
+
+  public Hex getHex(int q, int r) {
+    int index = indexOf(q, r);
+    return index >= 0 ? tiles.get(index) : null;
+  }
+
+  // The map's own instance for a tile, so callers can hand out coordinates without allocating
+  public HexCoordinate getCoordinate(int index) {
+    return tiles.get(index);
   }
 
   public static List<HexCoordinate> getAllInRange(HexCoordinate centre, int range) {
@@ -0,0 +1,20 @@
+package civ.core.data.map;
+
+import civ.core.data.hex.Hex;
+import civ.core.map.generation.TerrainGeneration;
+
+/*
+ * Holds the map's tiles by index. Every hex a store generates is given the store's terrain
+ * listener, so in-place edits to it reach the map.
+ */
+interface TileStore {
+  Hex get(int index);
+
+  void set(int index, Hex h);
+
+  // Fills the store from the generator, all at once or as tiles are asked for
+  void populate(TerrainGeneration tg);
+
+  // Tiles generated since the store was last populated
+  int getGeneratedTileCount();
+}
@@ -7,20 +7,52 @@ import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.imageio.ImageIO;
 
 public class GFXUtils {
+  // Decoded once per path, so every unit of a type and colour shares one read-only image
+  private static final Map<String, BufferedImage> IMAGES = new ConcurrentHashMap<>();
+  private static final BufferedImage MISSING = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
   
   private GFXUtils() {
     throw new IllegalStateException("Utility class");
   }
   
   public static BufferedImage loadImage(String path) {
+    BufferedImage image = IMAGES.computeIfAbsent(path, GFXUtils::readImage);
+    return image != MISSING ? image : null;
+  }
+
+  private static BufferedImage readImage(String path) {
     try {
-      return ImageIO.read(new File(path)); 
+      BufferedImage image = ImageIO.read(locate(path));
+      return image != null ? image : MISSING;
     } catch (IOException e) {
-      System.err.println(e);
-      return null;
+      System.err.println(e + ": " + path);
+      return MISSING;
+    }
+  }
+
+  /*
+   * Relative paths are tried from the working directory, then from the folder holding the game's
+   * classes or jar, so the game and its tools can be started from any directory.
+   */
+  private static File locate(String path) {
+    File file = new File(path);
+    if (file.isAbsolute() || file.exists())
+      return file;
+
+    try {
+      CodeSource code = GFXUtils.class.getProtectionDomain().getCodeSource();
+      File home = code != null ? new File(code.getLocation().toURI()).getParentFile() : null;
+      File fromHome = home != null ? new File(home, path) : null;
+      return fromHome != null && fromHome.exists() ? fromHome : file;
+    } catch (URISyntaxException | SecurityException e) {
+      return file;
     }
   }
   public static BufferedImage loadImageAndScale(String path, double targetW, double targetH) {
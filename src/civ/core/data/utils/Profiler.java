@@ -0,0 +1,137 @@
+package civ.core.data.utils;
+
+import java.util.Arrays;
+
+/*
+ * Per-phase frame timings. Each phase keeps its last SAMPLES durations in a ring buffer, from
+ * which the percentiles are read. Recording allocates nothing, and while the profiler is off
+ * start and lap return without reading the clock.
+ */
+public class Profiler {
+  public enum Phase {
+    FRAME("Frame"),
+    UPDATE("Update"),
+    UNIT_PATH("Unit path"),
+    BUTTONS("Buttons"),
+    NEXT_TURN("Next turn"),
+    HEX_GRID("Hex grid"),
+    CITIES("Cities"),
+    UNITS("Units"),
+    SELECTED_HEX("Selected hex"),
+    PATH("Path"),
+    FOCUS_HEX("Focus hex"),
+    HEX_INSPECT("Hex inspect"),
+    UI("UI"),
+    CITY_UI("City UI"),
+    ACTION_MENUS("Action menus");
+
+    private final String label;
+
+    Phase(String label) {
+      this.label = label;
+    }
+
+    public String getLabel() {
+      return this.label;
+    }
+  }
+
+  public static final int SAMPLES = 256;
+
+  private static final Phase[] PHASES = Phase.values();
+  private static final long[][] samples = new long[PHASES.length][SAMPLES];
+  private static final int[] recorded = new int[PHASES.length];
+  private static final long[] scratch = new long[SAMPLES];
+
+  private static volatile boolean enabled = false;
+
+  private static int fps;
+  private static int ups;
+
+  private Profiler() {
+    throw new IllegalStateException("Utility Class");
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void toggle() {
+    setEnabled(!enabled);
+  }
+
+  public static synchronized void setEnabled(boolean isEnabled) {
+    if (isEnabled && !enabled)
+      Arrays.fill(recorded, 0); // Drop samples left over from the last time it was on
+    enabled = isEnabled;
+  }
+
+  public static long start() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  // Records the time since start against phase, and returns the start time for the next phase
+  public static long lap(Phase phase, long start) {
+    if (!enabled || start == 0L)
+      return 0L;
+
+    long now = System.nanoTime();
+    record(phase, now - start);
+    return now;
+  }
+
+  public static void record(Phase phase, long nanos) {
+    if (!enabled)
+      return;
+
+    int p = phase.ordinal();
+    samples[p][recorded[p] % SAMPLES] = nanos;
+    recorded[p]++;
+  }
+
+  public static void setRates(int framesPerSecond, int updatesPerSecond) {
+    fps = framesPerSecond;
+    ups = updatesPerSecond;
+  }
+
+  public static int getFramesPerSecond() {
+    return fps;
+  }
+
+  public static int getUpdatesPerSecond() {
+    return ups;
+  }
+
+  public static int getSampleCount(Phase phase) {
+    return Math.min(recorded[phase.ordinal()], SAMPLES);
+  }
+
+  // The given percentile (0-100) of the phase's recorded durations in nanoseconds, or 0 if none
+  public static synchronized long percentile(Phase phase, double pct) {
+    int n = sortSamples(phase);
+    return n == 0 ? 0L : rank(n, pct);
+  }
+
+  /*
+   * Writes each of the given percentiles of the phase's durations into out, sorting the samples
+   * once for all of them. Every entry is 0 if nothing has been recorded.
+   */
+  public static synchronized void percentiles(Phase phase, double[] pcts, long[] out) {
+    int n = sortSamples(phase);
+    for (int i = 0; i < pcts.length; i++)
+      out[i] = n == 0 ? 0L : rank(n, pcts[i]);
+  }
+
+  // Copies the phase's samples into scratch in ascending order and returns how many there are
+  private static int sortSamples(Phase phase) {
+    int n = getSampleCount(phase);
+    System.arraycopy(samples[phase.ordinal()], 0, scratch, 0, n);
+    Arrays.sort(scratch, 0, n);
+    return n;
+  }
+
+  private static long rank(int n, double pct) {
+    int rank = (int) Math.ceil(pct / 100D * n) - 1;
+    return scratch[Math.max(0, Math.min(n - 1, rank))];
+  }
+}
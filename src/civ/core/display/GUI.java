@@ -18,7 +18,9 @@ import civ.core.data.Point;
 import civ.core.data.hex.Hex;
 import civ.core.data.hex.HexCoordinate;
 import civ.core.data.hex.PathHex;
+import civ.core.data.map.HexMap;
 import civ.core.data.utils.Pair;
+import civ.core.data.utils.Profiler;
 import civ.core.data.utils.TurnTimer;
 import civ.core.display.menu.button.Button;
 import civ.core.display.menu.button.UIButton;
@@ -39,20 +41,28 @@ public class GUI {
 
   private Polygon poly;
   private List<Button> uiButtons;
+
+  // Landscape layer, drawn ahead of time and redrawn only where tiles change
+  private final TerrainCache terrain;
   
   private HexCoordinate focusHex = null;
-  
-  private static final Color HEX_OUTLINE_COLOUR = new Color(80, 80, 80, 75);
+
+  private static final Color PROFILER_BACKGROUND = new Color(0, 0, 0, 180);
+  private static final Profiler.Phase[] PROFILER_PHASES = Profiler.Phase.values();
+  private static final double[] PROFILER_PERCENTILES = {50, 95, 99};
+
+  // Reused by the profiler overlay so drawing it each frame allocates nothing
+  private final long[] profilerNanos = new long[PROFILER_PERCENTILES.length];
+  private final char[] profilerText = new char[64];
 
   public GUI() {
     this.scroll = HEX_RADIUS >> 1;
 
+    // Reused for every hex outline drawn, Layout.polygon resets it each time
     poly = new Polygon();
-    HexCoordinate h = layout.pixelToHex(new Point(0, 0));
-    Point[] pts = layout.polygonCorners(h);
-    for (int k = 0; k < pts.length; k++) {
-      poly.addPoint((int) pts[k].x, (int) pts[k].y);
-    }
+    layout.polygon(layout.pixelToHex(new Point(0, 0)), 0, 0, poly);
+
+    terrain = new TerrainCache(hexMap, layout);
 
     uiButtons = new ArrayList<>();
     uiButtons.add(new UIButton(Events.NEXT_TURN, "Next Turn", HEX_RADIUS * 4, HEX_RADIUS,
@@ -61,44 +71,7 @@ public class GUI {
    
   public void drawHexGrid(Graphics2D g) {
     g.setStroke(new BasicStroke(3.0f));
-    final int bnd = 8;
-
-    int centreX = (-scrollX) + WINDOW_WIDTH / 2;
-    int centreY = (-scrollY) + WINDOW_HEIGHT / 2;
-
-    HexCoordinate hexc = layout.pixelToHex(new Point(centreX, centreY));
-    Point p1 = null;
-    Point[] p2 = null;
-    
-    Hex h = null; 
-    
-    for (int dx = -bnd; dx <= bnd; dx++) {
-      for (int dy = Math.max(-bnd, -dx - bnd); dy <= Math.min(bnd, -dx + bnd); dy++) {
-        int dz = -dx - dy;
-
-        h = hexMap.getHex(new HexCoordinate(hexc.q + dx, hexc.r + dy, hexc.s + dz));
-        
-        if (h != null) {
-          p1 = layout.getPolygonPositionEstimate(h);
-          if ((p1.x + scrollX < -HEX_RADIUS) || (p1.x + scrollX > WINDOW_WIDTH + HEX_RADIUS)
-              || (p1.y + scrollY < -HEX_RADIUS) || (p1.y + scrollY > WINDOW_HEIGHT + HEX_RADIUS)) {
-            continue;
-          }
-          
-          p2 = layout.polygonCorners(h);
-          for (int k = 0; k < p2.length; k++) {
-            poly.addPoint((int) (p2[k].x) + scrollX, (int) (p2[k].y) + scrollY);
-          }
-
-          g.setColor(h.getLandscape().getColour());
-          g.fillPolygon(poly);
-
-          g.setColor(HEX_OUTLINE_COLOUR);
-          g.drawPolygon(poly);
-          poly.reset();
-        }
-      }
-    }
+    terrain.draw(g, scrollX, scrollY, WINDOW_WIDTH, WINDOW_HEIGHT);
   }
 
   public void drawSelectedHex(Graphics2D g) {
@@ -107,15 +80,12 @@ public class GUI {
 
     g.setStroke(new BasicStroke(3.5f));
 
-    HexCoordinate s = layout.pixelToHex(new Point(mouseX - scrollX, mouseY - scrollY));
-    if (hexMap.getHex(s) != null) {
-      Point[] p = layout.polygonCorners(s);
-      for (int k = 0; k < p.length; k++) {
-        poly.addPoint((int) (p[k].x) + scrollX, (int) (p[k].y) + scrollY);
-      }
+    long key = layout.pixelToKey(mouseX - scrollX, mouseY - scrollY);
+    Hex s = hexMap.getHex(HexMap.keyQ(key), HexMap.keyR(key));
+    if (s != null) {
+      layout.polygon(s, scrollX, scrollY, poly);
       g.setColor(Color.WHITE);
       g.drawPolygon(poly);
-      poly.reset();
     }
   }
 
@@ -214,14 +184,9 @@ public class GUI {
     if (focusHex != null && hexMap.getHex(focusHex) != null) {
       g.setStroke(new BasicStroke(5.0f));
 
-      Point[] p = layout.polygonCorners(focusHex);
-      for (int k = 0; k < p.length; k++) {
-        poly.addPoint((int) (p[k].x) + scrollX, (int) (p[k].y) + scrollY);
-
-      }
+      layout.polygon(focusHex, scrollX, scrollY, poly);
       g.setColor(Color.WHITE);
       g.drawPolygon(poly);
-      poly.reset();
     }
   }
 
@@ -235,19 +200,14 @@ public class GUI {
   }
   
   public void drawCityAOO(Graphics2D g, City city, BaseCivilization civ) {
-    Point[] p = null;
     Color civColour = civ.getColour();
     Color hexColour = new Color(civColour.getRed(), civColour.getGreen(), civColour.getBlue(), 200);
+    g.setStroke(new BasicStroke(3.5f));
+    g.setColor(hexColour);
     for (HexCoordinate h : city.getCityHexes()) {
       if (hexMap.getHex(h) != null) {
-        g.setStroke(new BasicStroke(3.5f));
-        p = layout.polygonCorners(h);
-        for (int k = 0; k < p.length; k++) {
-          poly.addPoint((int) (p[k].x) + scrollX, (int) (p[k].y) + scrollY);
-        }
-        g.setColor(hexColour);
+        layout.polygon(h, scrollX, scrollY, poly);
         g.fillPolygon(poly);
-        poly.reset();
       }
     }
   }
@@ -343,6 +303,78 @@ public class GUI {
     uiButtons.stream().forEach(i -> i.drawButton(g));
   }
   
+  public void drawProfiler(Graphics2D g) {
+    if (!Profiler.isEnabled())
+      return;
+
+    final int padding = 4;
+    int lineHeight = g.getFontMetrics().getHeight();
+    int labelWidth = g.getFontMetrics().stringWidth("Action menus  ");
+    int columnWidth = g.getFontMetrics().stringWidth("000.00  ");
+    int rows = PROFILER_PHASES.length + 2;
+    int x = padding;
+    int y = uiYOffset + padding;
+
+    g.setColor(PROFILER_BACKGROUND);
+    g.fillRect(x, y, labelWidth + columnWidth * 3 + padding * 2, lineHeight * rows + padding * 2);
+
+    x += padding;
+    y += lineHeight;
+    g.setColor(Color.WHITE);
+    int length = appendInt(profilerText, 0, Profiler.getFramesPerSecond());
+    length = appendText(profilerText, length, " fps, ");
+    length = appendInt(profilerText, length, Profiler.getUpdatesPerSecond());
+    length = appendText(profilerText, length, " ups");
+    g.drawChars(profilerText, 0, length, x, y);
+
+    // Durations of each phase in milliseconds, over the last Profiler.SAMPLES samples
+    y += lineHeight;
+    g.drawString("ms", x, y);
+    g.drawString("p50", x + labelWidth, y);
+    g.drawString("p95", x + labelWidth + columnWidth, y);
+    g.drawString("p99", x + labelWidth + columnWidth * 2, y);
+
+    for (Profiler.Phase phase : PROFILER_PHASES) {
+      y += lineHeight;
+      g.drawString(phase.getLabel(), x, y);
+      Profiler.percentiles(phase, PROFILER_PERCENTILES, profilerNanos);
+      for (int i = 0; i < profilerNanos.length; i++) {
+        length = appendMillis(profilerText, 0, profilerNanos[i]);
+        g.drawChars(profilerText, 0, length, x + labelWidth + columnWidth * i, y);
+      }
+    }
+  }
+
+  // Writes nanos as milliseconds to two decimal places from pos, returning the end position
+  private static int appendMillis(char[] buf, int pos, long nanos) {
+    long hundredths = (nanos + 5_000L) / 10_000L;
+    pos = appendInt(buf, pos, hundredths / 100);
+    buf[pos++] = '.';
+    buf[pos++] = (char) ('0' + hundredths / 10 % 10);
+    buf[pos++] = (char) ('0' + hundredths % 10);
+    return pos;
+  }
+
+  private static int appendInt(char[] buf, int pos, long value) {
+    if (value < 0) {
+      buf[pos++] = '-';
+      value = -value;
+    }
+    int end = pos;
+    for (long rest = value; rest >= 10; rest /= 10)
+      end++;
+    for (int i = end; i >= pos; i--) {
+      buf[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    return end + 1;
+  }
+
+  private static int appendText(char[] buf, int pos, String text) {
+    text.getChars(0, text.length(), buf, pos);
+    return pos + text.length();
+  }
+
   public void drawCityManagementUI(Graphics2D g) {
     if (focusHex != null) {
       // We have clicked on a players city, show this cities UI
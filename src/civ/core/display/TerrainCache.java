@@ -0,0 +1,242 @@
+package civ.core.display;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import civ.core.data.Layout;
+import civ.core.data.Point;
+import civ.core.data.hex.Hex;
+import civ.core.data.hex.HexCoordinate;
+import civ.core.data.map.HexMap;
+
+/*
+ * The landscape layer of the map, drawn once into offscreen images of CHUNK_SIZE x CHUNK_SIZE
+ * hexes. A chunk is only redrawn after one of its tiles is replaced or has its terrain edited in
+ * place, so drawing the map each frame is a blit per visible chunk no matter how many hexes are on
+ * screen.
+ */
+public class TerrainCache {
+  public static final int CHUNK_SIZE = 8;
+
+  private static final Color HEX_OUTLINE_COLOUR = new Color(80, 80, 80, 75);
+  private static final float OUTLINE_WIDTH = 3.0f;
+  private static final int PADDING = 2; // Room for the outline stroke past the hex edge
+
+  private final HexMap map;
+  private final Layout layout;
+
+  private final int chunksWide;
+  private final int chunksHigh;
+
+  // Pixel bounds of each chunk in map space, before scrolling
+  private final int[] chunkX;
+  private final int[] chunkY;
+  private final int[] chunkW;
+  private final int[] chunkH;
+
+  // Pixel extent of each column and row of chunks, both increasing, to find the visible range
+  private final int[] columnLeft;
+  private final int[] columnRight;
+  private final int[] rowTop;
+  private final int[] rowBottom;
+
+  private final BufferedImage[] images;
+  private final boolean[] dirty;
+
+  private final Polygon poly = new Polygon();
+
+  public TerrainCache(HexMap map, Layout layout) {
+    this.map = map;
+    this.layout = layout;
+    this.chunksWide = (map.getMapWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    this.chunksHigh = (map.getMapHeight() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+    int chunks = chunksWide * chunksHigh;
+    chunkX = new int[chunks];
+    chunkY = new int[chunks];
+    chunkW = new int[chunks];
+    chunkH = new int[chunks];
+    columnLeft = new int[chunksWide];
+    columnRight = new int[chunksWide];
+    rowTop = new int[chunksHigh];
+    rowBottom = new int[chunksHigh];
+    images = new BufferedImage[chunks];
+    dirty = new boolean[chunks];
+    Arrays.fill(dirty, true);
+
+    measureChunks();
+    map.addTileListener(this::tileChanged);
+  }
+
+  private void measureChunks() {
+    int halfW = (int) Math.ceil(layout.size.x) + PADDING;
+    int halfH = (int) Math.ceil(layout.size.y) + PADDING;
+
+    for (int chunk = 0; chunk < chunkX.length; chunk++) {
+      double minX = Double.MAX_VALUE;
+      double minY = Double.MAX_VALUE;
+      double maxX = -Double.MAX_VALUE;
+      double maxY = -Double.MAX_VALUE;
+
+      // The outermost centres are in the first and last columns, and odd and even rows are
+      // offset from each other, so the first two rows and the last row are enough
+      int rowStart = rowStart(chunk);
+      int rowEnd = rowEnd(chunk);
+      int[] rows = {rowStart, Math.min(rowStart + 1, rowEnd - 1), rowEnd - 1};
+      int[] cols = {colStart(chunk), colEnd(chunk) - 1};
+      for (int row : rows) {
+        for (int col : cols) {
+          int index = row * map.getMapWidth() + col;
+          Point centre = layout.hexToPixel(new HexCoordinate(map.qOf(index), map.rOf(index)));
+          minX = Math.min(minX, centre.x);
+          minY = Math.min(minY, centre.y);
+          maxX = Math.max(maxX, centre.x);
+          maxY = Math.max(maxY, centre.y);
+        }
+      }
+
+      chunkX[chunk] = (int) Math.floor(minX) - halfW;
+      chunkY[chunk] = (int) Math.floor(minY) - halfH;
+      chunkW[chunk] = (int) Math.ceil(maxX) + halfW - chunkX[chunk];
+      chunkH[chunk] = (int) Math.ceil(maxY) + halfH - chunkY[chunk];
+    }
+
+    Arrays.fill(columnLeft, Integer.MAX_VALUE);
+    Arrays.fill(columnRight, Integer.MIN_VALUE);
+    Arrays.fill(rowTop, Integer.MAX_VALUE);
+    Arrays.fill(rowBottom, Integer.MIN_VALUE);
+    for (int chunk = 0; chunk < chunkX.length; chunk++) {
+      int column = chunk % chunksWide;
+      int row = chunk / chunksWide;
+      columnLeft[column] = Math.min(columnLeft[column], chunkX[chunk]);
+      columnRight[column] = Math.max(columnRight[column], chunkX[chunk] + chunkW[chunk]);
+      rowTop[row] = Math.min(rowTop[row], chunkY[chunk]);
+      rowBottom[row] = Math.max(rowBottom[row], chunkY[chunk] + chunkH[chunk]);
+    }
+  }
+
+  // The first of the increasing ends that is at least from
+  private static int firstReaching(int[] ends, int from) {
+    int lo = 0;
+    int hi = ends.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (ends[mid] < from)
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    return lo;
+  }
+
+  // The last of the increasing starts that is at most to, or -1 if none are
+  private static int lastStartingBy(int[] starts, int to) {
+    int lo = 0;
+    int hi = starts.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (starts[mid] <= to)
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    return lo - 1;
+  }
+
+  private int rowStart(int chunk) {
+    return (chunk / chunksWide) * CHUNK_SIZE;
+  }
+
+  private int rowEnd(int chunk) {
+    return Math.min(rowStart(chunk) + CHUNK_SIZE, map.getMapHeight());
+  }
+
+  private int colStart(int chunk) {
+    return (chunk % chunksWide) * CHUNK_SIZE;
+  }
+
+  private int colEnd(int chunk) {
+    return Math.min(colStart(chunk) + CHUNK_SIZE, map.getMapWidth());
+  }
+
+  private int chunkOf(int index) {
+    int row = index / map.getMapWidth();
+    int col = index - row * map.getMapWidth();
+    return (row / CHUNK_SIZE) * chunksWide + col / CHUNK_SIZE;
+  }
+
+  private void tileChanged(int index) {
+    if (index == HexMap.ALL_TILES)
+      Arrays.fill(dirty, true);
+    else
+      dirty[chunkOf(index)] = true;
+  }
+
+  /*
+   * Draws every chunk that overlaps the viewWidth x viewHeight view at the given scroll. Only the
+   * rows and columns of chunks that reach into the view are visited, so the cost follows the view
+   * size rather than the map size.
+   */
+  public void draw(Graphics2D g, int scrollX, int scrollY, int viewWidth, int viewHeight) {
+    int firstColumn = firstReaching(columnRight, -scrollX);
+    int lastColumn = lastStartingBy(columnLeft, viewWidth - scrollX);
+    int firstRow = firstReaching(rowBottom, -scrollY);
+    int lastRow = lastStartingBy(rowTop, viewHeight - scrollY);
+
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int chunk = row * chunksWide + column;
+        int x = chunkX[chunk] + scrollX;
+        int y = chunkY[chunk] + scrollY;
+        if (x + chunkW[chunk] < 0 || x > viewWidth || y + chunkH[chunk] < 0 || y > viewHeight)
+          continue;
+
+        if (dirty[chunk] || images[chunk] == null)
+          render(chunk);
+        g.drawImage(images[chunk], x, y, null);
+      }
+    }
+  }
+
+  private void render(int chunk) {
+    BufferedImage image = images[chunk];
+    if (image == null) {
+      image = new BufferedImage(chunkW[chunk], chunkH[chunk], BufferedImage.TYPE_INT_ARGB_PRE);
+      images[chunk] = image;
+    }
+    dirty[chunk] = false;
+
+    Graphics2D g = image.createGraphics();
+    g.setComposite(AlphaComposite.Clear);
+    g.fillRect(0, 0, image.getWidth(), image.getHeight());
+    g.setComposite(AlphaComposite.SrcOver);
+    g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    g.setStroke(new BasicStroke(OUTLINE_WIDTH));
+
+    int offsetX = chunkX[chunk];
+    int offsetY = chunkY[chunk];
+    int rowEnd = rowEnd(chunk);
+    int colEnd = colEnd(chunk);
+    for (int row = rowStart(chunk); row < rowEnd; row++) {
+      for (int col = colStart(chunk); col < colEnd; col++) {
+        Hex h = map.getHex(row * map.getMapWidth() + col);
+        if (h == null)
+          continue;
+
+        layout.polygon(h, -offsetX, -offsetY, poly);
+
+        g.setColor(h.getLandscape().getColour());
+        g.fillPolygon(poly);
+
+        g.setColor(HEX_OUTLINE_COLOUR);
+        g.drawPolygon(poly);
+      }
+    }
+    g.dispose();
+  }
+}
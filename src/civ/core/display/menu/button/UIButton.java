@@ -7,6 +7,7 @@ import civ.core.event.Events;
 import civ.core.input.MouseHandler;
 
 import static civ.core.instance.IData.*;
+import static civ.core.instance.IDisplay.ui;
 
 public class UIButton extends Button {
 
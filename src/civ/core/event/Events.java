@@ -6,10 +6,12 @@ import static civ.core.instance.IData.turnCounter;
 import java.awt.image.BufferedImage;
 import civ.core.display.GUI;
 import civ.core.event.callback.EventCallbackI;
-import civ.core.map.civilization.BaseCivilization;
+import civ.core.map.civilization.TurnProcessor;
 import civ.core.unit.Settler;
 import civ.core.unit.Unit;
 import civ.core.data.utils.GFXUtils;
+import civ.core.data.utils.Profiler;
+import civ.core.data.utils.Profiler.Phase;
 import civ.core.data.utils.TurnTimer;
 
 public enum Events {
@@ -46,10 +48,11 @@ public enum Events {
 
   // Other button events
   NEXT_TURN(null, () -> {
-    for (BaseCivilization c : civs)
-      c.nextTurn();
+    long t = Profiler.start();
+    TurnProcessor.nextTurn(civs, turnCounter);
     turnCounter++;
     TurnTimer.nextTurn();
+    Profiler.lap(Phase.NEXT_TURN, t);
   }),
   CIVILOPEDIA_OPEN(null, null),
   RESEARCH_TREE_OPEN(null,null),
@@ -0,0 +1,8 @@
+package civ.core.event.callback;
+
+import civ.core.data.hex.Hex;
+
+@FunctionalInterface
+public interface TerrainChangeCallbackI {
+    void invoke(Hex hex);
+}
@@ -0,0 +1,6 @@
+package civ.core.event.callback;
+
+@FunctionalInterface
+public interface TileChangeCallbackI {
+    void invoke(int tileIndex);
+}
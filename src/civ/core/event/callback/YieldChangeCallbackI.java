@@ -0,0 +1,8 @@
+package civ.core.event.callback;
+
+import civ.core.map.terrain.YieldType;
+
+@FunctionalInterface
+public interface YieldChangeCallbackI {
+    void invoke(YieldType type, int delta);
+}
@@ -0,0 +1,16 @@
+package civ.core.event.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("civ.Frame")
+@Label("Frame")
+@Category({"Civilization", "Game Loop"})
+@Description("One frame drawn by the game loop")
+public class FrameEvent extends jdk.jfr.Event {
+  @Label("Active Rendering")
+  @Description("Drawn into the Canvas buffer strategy rather than through Swing repaint")
+  public boolean active;
+}
@@ -0,0 +1,25 @@
+package civ.core.event.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("civ.PathSearch")
+@Label("Path Search")
+@Category({"Civilization", "Pathfinding"})
+@Description("One A* search between two tiles")
+public class PathSearchEvent extends jdk.jfr.Event {
+  @Label("Start Tile")
+  public int startTile;
+
+  @Label("End Tile")
+  public int endTile;
+
+  @Label("Nodes Expanded")
+  public int nodesExpanded;
+
+  @Label("Path Length")
+  @Description("Hexes in the path found, zero when there is no path")
+  public int pathLength;
+}
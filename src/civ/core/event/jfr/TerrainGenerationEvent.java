@@ -0,0 +1,18 @@
+package civ.core.event.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("civ.TerrainGeneration")
+@Label("Terrain Generation")
+@Category({"Civilization", "Map"})
+@Description("Generating the landscape and features of every tile")
+public class TerrainGenerationEvent extends jdk.jfr.Event {
+  @Label("Width")
+  public int width;
+
+  @Label("Height")
+  public int height;
+}
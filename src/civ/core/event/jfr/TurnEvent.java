@@ -0,0 +1,24 @@
+package civ.core.event.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("civ.Turn")
+@Label("Civilization Turn")
+@Category({"Civilization", "Turns"})
+@Description("End of turn processing for one civilization")
+public class TurnEvent extends jdk.jfr.Event {
+  @Label("Civilization")
+  public String civilization;
+
+  @Label("Turn")
+  public int turn;
+
+  @Label("Cities")
+  public int cities;
+
+  @Label("Units")
+  public int units;
+}
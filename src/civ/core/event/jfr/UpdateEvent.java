@@ -0,0 +1,15 @@
+package civ.core.event.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("civ.Update")
+@Label("Update")
+@Category({"Civilization", "Game Loop"})
+@Description("One fixed-timestep update of the game state")
+public class UpdateEvent extends jdk.jfr.Event {
+  @Label("Turn")
+  public int turn;
+}
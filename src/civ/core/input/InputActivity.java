@@ -0,0 +1,36 @@
+package civ.core.input;
+
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Tracks when the player last touched the mouse or keyboard, so the game loop can drop to a low
+ * rate while nobody is playing. Input wakes the loop thread straight away rather than waiting
+ * out the idle interval.
+ */
+public class InputActivity {
+  // How long without input, and with no key held, before the game counts as idle
+  public static final long IDLE_AFTER_NANOS = 2_000_000_000L;
+
+  private static volatile long lastInput = System.nanoTime();
+  private static volatile Thread waiter;
+
+  private InputActivity() {
+    throw new IllegalStateException("Utility Class");
+  }
+
+  public static void touch() {
+    lastInput = System.nanoTime();
+    Thread t = waiter;
+    if (t != null)
+      LockSupport.unpark(t);
+  }
+
+  // The thread to unpark on input, normally the game loop
+  public static void setWaiter(Thread t) {
+    waiter = t;
+  }
+
+  public static boolean isIdle(long now) {
+    return now - lastInput > IDLE_AFTER_NANOS && KeyboardHandler.getPressedSet().isEmpty();
+  }
+}
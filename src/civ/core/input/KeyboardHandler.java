@@ -4,6 +4,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.util.HashSet;
 import java.util.Set;
+import civ.core.data.utils.Profiler;
 
 public class KeyboardHandler implements KeyListener {
   static {
@@ -12,13 +13,20 @@ public class KeyboardHandler implements KeyListener {
   
   protected static Set<Integer> pressedSet;
   
+  public static final int PROFILER_KEY = KeyEvent.VK_F3;
+
   protected static boolean shiftPressed;
   protected static boolean escPressed;
 
   
   @Override
   public void keyPressed(KeyEvent k) {
+    // Toggle on the first press only, held keys repeat keyPressed
+    if (k.getKeyCode() == PROFILER_KEY && !pressedSet.contains(PROFILER_KEY))
+      Profiler.toggle();
+
     pressedSet.add(k.getKeyCode());
+    InputActivity.touch();
   }
 
   @Override
@@ -29,6 +37,7 @@ public class KeyboardHandler implements KeyListener {
       setEscPressed(false);
     
     pressedSet.remove(k.getKeyCode());
+    InputActivity.touch();
   }
 
   @Override
@@ -29,24 +29,27 @@ public class MouseHandler implements MouseListener, MouseMotionListener, MouseWh
     mX = e.getX();
     mY = e.getY();
     pressedMouse = true;
+    InputActivity.touch();
   }
 
   public void mouseReleased(MouseEvent e) {
     pressedMouse = false;
+    InputActivity.touch();
   }
 
   public void mouseDragged(MouseEvent e) {
-
+    InputActivity.touch();
   }
 
   public void mouseWheelMoved(MouseWheelEvent e) {
-  
+    InputActivity.touch();
   }
 
   @Override
   public void mouseMoved(MouseEvent e) {
     movedMX = e.getX();
     movedMY = e.getY();
+    InputActivity.touch();
   }
 
   @Override
@@ -55,6 +58,7 @@ public class MouseHandler implements MouseListener, MouseMotionListener, MouseWh
   @Override
   public void mouseEntered(MouseEvent arg0) {
     lostFocus = false;
+    InputActivity.touch();
   }
 
   @Override
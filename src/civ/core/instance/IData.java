@@ -1,13 +1,15 @@
 package civ.core.instance;
 
 import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GraphicsEnvironment;
 import java.awt.Toolkit;
 import java.util.ArrayList;
 import java.util.List;
 import civ.core.data.Layout;
 import civ.core.data.Point;
 import civ.core.data.map.HexMap;
-import civ.core.display.GUI;
+import civ.core.map.generation.GenerationSettings;
 import civ.core.map.civilization.BaseCivilization;
 import civ.core.unit.Unit;
 
@@ -17,11 +19,15 @@ public class IData {
     throw new IllegalStateException("Utility Class");
   }
   
-  public static final int WINDOW_WIDTH = Toolkit.getDefaultToolkit().getScreenSize().width * 3 / 4;
-  public static final int WINDOW_HEIGHT = Toolkit.getDefaultToolkit().getScreenSize().height * 3 / 4;
+  // Without a display there is no screen to measure, so sizes are laid out for a 1080p one
+  private static final Dimension SCREEN_SIZE = GraphicsEnvironment.isHeadless()
+      ? new Dimension(1920, 1080) : Toolkit.getDefaultToolkit().getScreenSize();
+
+  public static final int WINDOW_WIDTH = SCREEN_SIZE.width * 3 / 4;
+  public static final int WINDOW_HEIGHT = SCREEN_SIZE.height * 3 / 4;
   public static final int HEX_RADIUS = ((WINDOW_WIDTH >> 4) + (WINDOW_HEIGHT >> 4)) >> 1;
-  public static final int W_HEXES = 40;
-  public static final int H_HEXES = 25;
+  public static final int W_HEXES = Integer.getInteger("civ.mapWidth", 40);
+  public static final int H_HEXES = Integer.getInteger("civ.mapHeight", 25);
   public static final int TEXT_SIZE = HEX_RADIUS >> 2; // Should be 16
   
   public static final Color FOOD_COLOUR = new Color(165, 190, 125);
@@ -30,10 +36,11 @@ public class IData {
   public static final Color SCIE_COLOUR = new Color(91, 154, 255);
   public static final Color CULT_COLOUR = new Color(186, 16, 160);
 
-  public static final HexMap hexMap = new HexMap(W_HEXES, H_HEXES);
+  // -Dciv.mapStorage=chunked generates tiles as they are first used, for very large maps
+  public static final HexMap hexMap = new HexMap(new GenerationSettings(W_HEXES, H_HEXES),
+      HexMap.Storage.valueOf(System.getProperty("civ.mapStorage", "dense").toUpperCase()));
   public static final Layout layout = new Layout(Layout.POINTY_TOP,
       new Point(HEX_RADIUS, HEX_RADIUS), new Point(HEX_RADIUS, HEX_RADIUS));
-  public static final GUI ui = new GUI();
 
   public static List<BaseCivilization> civs = new ArrayList<>();
 
@@ -0,0 +1,17 @@
+package civ.core.instance;
+
+import civ.core.display.GUI;
+
+/*
+ * The game window's interface, kept apart from IData so the game state can be set up and played
+ * without it. Nothing here is built until ui is first used, so a headless run never lays out the
+ * GUI or its terrain images.
+ */
+public class IDisplay {
+
+  private IDisplay() {
+    throw new IllegalStateException("Utility Class");
+  }
+
+  public static final GUI ui = new GUI();
+}
@@ -1,6 +1,7 @@
 package civ.core.map.cities;
 
 import static civ.core.instance.IData.*;
+import static civ.core.instance.IDisplay.ui;
 import static civ.core.map.cities.CityProductionOptions.*;
 import java.awt.BasicStroke;
 import java.awt.Color;
@@ -11,15 +12,16 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Random;
 import civ.core.data.Point;
 import civ.core.data.Producable;
 import civ.core.data.hex.HexCoordinate;
-import civ.core.data.map.HexMap;
 import civ.core.data.utils.GFXUtils;
 import civ.core.display.menu.button.CityProductionButton;
 import civ.core.display.menu.button.CityUnitProductionButton;
 import civ.core.instance.IUnit.UnitEnum;
 import civ.core.map.civilization.BaseCivilization;
+import civ.core.map.terrain.YieldType;
 import civ.core.unit.Scout;
 import civ.core.unit.Settler;
 import civ.core.unit.Unit;
@@ -84,10 +86,21 @@ public class City {
     this.cityCulture = CULT_INITIAL;
     this.cityStrength = STRG_INITIAL;
     
-    //Get all the hexes with the range of this hex
-    this.cityHexes = HexMap.getAllInRange(cityPos, INITIAL_CITY_AREA);
-    //Remove the city hex from the List
-    this.cityHexes.remove(cityPos);
+    //Get all the hexes with the range of this hex, except the city hex itself
+    this.cityHexes = new ArrayList<>();
+    int cityTile = hexMap.indexOf(cityPos);
+    if (cityTile >= 0) {
+      for (int tile : hexMap.tilesInRange(cityTile, INITIAL_CITY_AREA)) {
+        if (tile != cityTile)
+          this.cityHexes.add(hexMap.getCoordinate(tile));
+      }
+
+      // The city works its own hex and any around it that no other city works. Its yields start
+      // from the usual base values, and change as the yields of the tiles it works change
+      hexMap.getHex(cityTile).setWorkedBy(this::tileYieldChanged);
+      for (HexCoordinate h : cityHexes)
+        hexMap.getHex(h).setWorkedBy(this::tileYieldChanged);
+    }
     
     cityProductionButtons = new ArrayList<>();
     cityProductionQueue = new LinkedList<>();
@@ -338,6 +351,10 @@ public class City {
     return this.cityPos;
   }
   
+  public boolean isProductionQueueEmpty() {
+    return this.cityProductionQueue.isEmpty();
+  }
+
   public boolean addToProductionQueue(Producable next) {
     if (this.cityProductionQueue.size() < 3) {
       this.cityProductionQueue.add(next);
@@ -346,45 +363,88 @@ public class City {
     return false;
   }
   
-  private void addBuildToCity(Producable build) {
+  private boolean addBuildToCity(Producable build) {
     if (build instanceof Unit) {
-      addUnitToCity((Unit) build);
+      return addUnitToCity((Unit) build);
     }
+    return true;
   }
-  private void addUnitToCity(Unit unit) {
+  // False if there is no free hex around the city to put the unit on
+  private boolean addUnitToCity(Unit unit) {
+    Random rnd = owner.getRandom();
+    boolean isCivilian = "Settler".equals(unit.getName()) || "Worker".equals(unit.getName());
+    HexCoordinate spawnPos = cityPos.getValidRandomNeighbour(rnd, !isCivilian);
+    if (spawnPos == null)
+      return false;
+
     Unit unitToAdd = null;
     switch (unit.getName()) {
       case "Settler":
-        unitToAdd = new Settler(owner, cityPos.getValidRandomNeighbour(false), true);
+        unitToAdd = new Settler(owner, spawnPos, true);
         break;
       case "Worker":
-        unitToAdd = new Worker(owner, cityPos.getValidRandomNeighbour(false), true);
+        unitToAdd = new Worker(owner, spawnPos, true);
         break;
       case "Warrior":
-        unitToAdd = new Warrior(owner, cityPos.getValidRandomNeighbour(true), true);
+        unitToAdd = new Warrior(owner, spawnPos, true);
         break;
       case "Scout":
-        unitToAdd = new Scout(owner, cityPos.getValidRandomNeighbour(true), true);
+        unitToAdd = new Scout(owner, spawnPos, true);
         break;
       default:
-        unitToAdd = new Scout(owner, cityPos.getValidRandomNeighbour(true), true);
+        unitToAdd = new Scout(owner, spawnPos, true);
           
     }
-    owner.addUnit(unitToAdd);
     unitToAdd.addToMapAndCiv();
+    return true;
   }
   
+  // A worked tile's yield changed, so the city's and its civilization's totals move with it
+  private void tileYieldChanged(YieldType yt, int delta) {
+    addYield(yt, delta);
+    owner.cityYieldChanged(yt, delta);
+  }
+
+  private void addYield(YieldType yt, int delta) {
+    switch (yt) {
+      case FOOD:
+        cityFood += delta;
+        break;
+      case PRODUCTION:
+        cityProduction += delta;
+        break;
+      case SCIENCE:
+        cityScience += delta;
+        break;
+      case GOLD:
+        cityGold += delta;
+        break;
+      default:
+        break;
+    }
+  }
+
   public void nextTurn() {
-    if (!cityProductionQueue.isEmpty()) {
-      Producable nextToBuild = cityProductionQueue.peek();
-      nextToBuild.addProductionToBuild(cityProduction);
+    produce();
+    placeCompletedBuild();
+  }
 
-      // If we have contributed enough production to complete the build, remove from queue and add
-      // build to map
-      if (nextToBuild.getCurrentProduction() >= nextToBuild.getProductionCost()) {
-        addBuildToCity(nextToBuild); //Add the build to the city
-        cityProductionQueue.poll(); //Remove from the queue
-      }
+  // Adds this turn's production to the front of the queue. Only changes this city
+  public void produce() {
+    if (!cityProductionQueue.isEmpty())
+      cityProductionQueue.peek().addProductionToBuild(cityProduction);
+  }
+
+  /*
+   * If enough production has gone into the front of the queue to complete it, adds the build to
+   * the map and removes it from the queue. A unit with nowhere to go waits in the queue until there
+   * is room. Changes the map, and draws from the owner's random numbers.
+   */
+  public void placeCompletedBuild() {
+    Producable nextToBuild = cityProductionQueue.peek();
+    if (nextToBuild != null && nextToBuild.getCurrentProduction() >= nextToBuild.getProductionCost()
+        && addBuildToCity(nextToBuild)) {
+      cityProductionQueue.poll(); //Remove from the queue
     }
   }
   
@@ -4,8 +4,12 @@ import java.awt.Color;
 
 public class America extends BaseCivilization {
   public America() {
+    this(0);
+  }
+
+  public America(int index) {
     super("America", "American", new Color(34, 103, 214),
         new String[] {"Washington", "New York", "Boston", "Philadelphia", "Atlanta", "Chicago",
-            "Seattle", "San Francisco", "Los Angeles", "Houston"});
+            "Seattle", "San Francisco", "Los Angeles", "Houston"}, index);
   }
 }
@@ -1,13 +1,16 @@
 package civ.core.map.civilization;
 
+import static civ.core.instance.IData.hexMap;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import civ.core.data.hex.HexCoordinate;
 import civ.core.instance.IUnit.UnitEnum;
 import civ.core.map.cities.City;
+import civ.core.map.terrain.YieldType;
 import civ.core.unit.Unit;
 
 public class BaseCivilization {
@@ -34,15 +37,25 @@ public class BaseCivilization {
 
   private Color civColour;
 
+  private final Random rnd;
+
   public BaseCivilization(String nameSingular, String namePlural, Color civColour,
       String[] cityNames) {
-    this.id = nameSingular.hashCode() ^ namePlural.hashCode();
+    this(nameSingular, namePlural, civColour, cityNames, 0);
+  }
+
+  // index tells apart several civilizations of the same nation, which get their own id and random
+  // numbers. Index 0 is the nation's usual id
+  public BaseCivilization(String nameSingular, String namePlural, Color civColour,
+      String[] cityNames, int index) {
+    this.id = 31 * index + (nameSingular.hashCode() ^ namePlural.hashCode());
     this.units = new ArrayList<>();
     this.civColour = civColour;
     this.cityNames = cityNames;
     this.nameSingular = nameSingular;
     this.namePlural = namePlural;
     this.cities = new ArrayList<>();
+    this.rnd = new Random(hexMap.getSettings().getSeed() ^ id);
   }
 
   public boolean sameCivilization(int id) {
@@ -87,6 +100,20 @@ public class BaseCivilization {
     this.culturePT += c.getCulture();
   }
 
+  // Called by a city when one of its yields changes, so the per turn totals never need a rescan
+  public void cityYieldChanged(YieldType type, int delta) {
+    switch (type) {
+      case SCIENCE:
+        this.sciencePT += delta;
+        break;
+      case GOLD:
+        this.goldPT += delta;
+        break;
+      default:
+        break;
+    }
+  }
+
   public List<Unit> getUnits() {
     return units;
   }
@@ -95,6 +122,10 @@ public class BaseCivilization {
     return cities;
   }
 
+  public Random getRandom() {
+    return this.rnd;
+  }
+
   public int getID() {
     return this.id;
   }
@@ -167,11 +198,33 @@ public class BaseCivilization {
         );
   }
 
+  // The turn for this civilization alone. TurnProcessor runs the two halves for every civ
   public void nextTurn() {
+    startTurn();
+    finishTurn();
+  }
+
+  /*
+   * Cities add production and units refresh their movement. Only changes this civilization, and
+   * each city and unit only changes itself, so a big enough civilization splits them across the
+   * common fork/join pool.
+   */
+  public void startTurn() {
+    if (cities.size() + units.size() < TurnProcessor.PARALLEL_THRESHOLD) {
+      for (City city : cities)
+        city.produce();
+
+      for (Unit unit : units)
+        unit.nextTurn();
+    } else {
+      cities.parallelStream().forEach(City::produce);
+      units.parallelStream().forEach(Unit::nextTurn);
+    }
+  }
+
+  // Places finished builds on the map. Units placed here start with full movement
+  public void finishTurn() {
     for (City city : cities)
-      city.nextTurn();
-    
-    for (Unit unit : units)
-      unit.nextTurn();
+      city.placeCompletedBuild();
   }
 }
@@ -4,9 +4,13 @@ import java.awt.Color;
 
 public class England extends BaseCivilization {
   public England() {
+    this(0);
+  }
+
+  public England(int index) {
     super("England", "English", new Color(237, 59, 59),
         new String[] {"London", "York", "Nottingham", "Hastings", "Canterbury", "Coventry",
-            "Warwick", "Newcastle", "Oxford", "Liverpool"});
+            "Warwick", "Newcastle", "Oxford", "Liverpool"}, index);
   }
 
   @Override
@@ -0,0 +1,57 @@
+package civ.core.map.civilization;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import civ.core.event.jfr.TurnEvent;
+
+/*
+ * End of turn for every civilization. Each civilization's own turn work (cities adding production,
+ * units refreshing their movement) only changes that civilization, so on a big enough game the
+ * civilizations are processed as separate tasks on the common fork/join pool, and a civilization
+ * past the threshold on its own also splits its cities and units into tasks. Placing finished
+ * builds changes the shared map and draws from each civilization's random numbers, so it is merged
+ * afterwards on the calling thread, civ by civ and city by city. The result is the same as calling
+ * BaseCivilization.nextTurn on each civ in turn.
+ */
+public class TurnProcessor {
+  // Below this many cities and units the turn is quicker on the calling thread
+  static final int PARALLEL_THRESHOLD = 1024;
+
+  private TurnProcessor() {
+    throw new IllegalStateException("Utility Class");
+  }
+
+  public static void nextTurn(List<BaseCivilization> civs, int turn) {
+    int work = 0;
+    for (BaseCivilization civ : civs)
+      work += civ.getCities().size() + civ.getUnits().size();
+    nextTurn(civs, turn, civs.size() > 1 && work >= PARALLEL_THRESHOLD);
+  }
+
+  static void nextTurn(List<BaseCivilization> civs, int turn, boolean parallel) {
+    TurnEvent[] events = new TurnEvent[civs.size()];
+    IntStream each = IntStream.range(0, civs.size());
+    (parallel ? each.parallel() : each).forEach(i -> {
+      TurnEvent event = new TurnEvent();
+      event.begin();
+      civs.get(i).startTurn();
+      event.end();
+      events[i] = event;
+    });
+
+    // One event per civilization, covering its own turn work; committed once its builds are placed
+    for (int i = 0; i < civs.size(); i++) {
+      BaseCivilization civ = civs.get(i);
+      civ.finishTurn();
+
+      TurnEvent event = events[i];
+      if (event.shouldCommit()) {
+        event.civilization = civ.getPluralName();
+        event.turn = turn;
+        event.cities = civ.getNumberOfCities();
+        event.units = civ.getUnits().size();
+        event.commit();
+      }
+    }
+  }
+}
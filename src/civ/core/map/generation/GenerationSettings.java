@@ -0,0 +1,207 @@
+package civ.core.map.generation;
+
+import java.util.Random;
+
+/*
+ * Everything that decides what a generated map looks like. Two maps generated from equal
+ * settings are identical, whatever the number of threads used, so a seed is enough to reproduce
+ * a map in a bug report or a benchmark. Without an explicit seed, the civ.seed system property is
+ * used if set, otherwise a random one. Settings that share a NoiseCache with the same seed reuse
+ * each other's noise, so changing only the thresholds regenerates without evaluating any.
+ */
+public class GenerationSettings {
+  public static final String SEED_PROPERTY = "civ.seed";
+
+  private final int width;
+  private final int height;
+  private long seed;
+
+  private int octaves = 2;
+  private double featureSize = 15.0D;
+
+  // Elevation thresholds, from lowest to highest
+  private double waterLevel = 0.0005D; // Below is lake
+  private double coastLevel = 0.001D; // Below is coast
+  private double desertLevel = 0.01D; // Below is desert, above is grassland
+  private double hillLevel = 0.50D; // Above is plains, woods or rainforest
+  private double peakLevel = 0.80D; // Above is tundra or snow
+
+  // Temperature thresholds within each elevation band, from coldest to warmest
+  private double iceTemperature = 0.05D; // Lakes below freeze
+  private double peakTundraTemperature = 0.80D; // Peaks below are tundra
+  private double peakMountainTemperature = 0.50D; // Other peaks below are snow with mountains
+  private double hillPlainsTemperature = 0.30D; // Hills below are plains
+  private double hillWoodsTemperature = 0.60D; // Hills below are grassland with woods
+  private double hillRainforestTemperature = 0.80D; // Below is rainforest, above is tundra
+  private double marshTemperature = 0.30D; // Grassland below has marsh
+  private double woodsTemperature = 0.50D; // Below is woods, above is rainforest
+
+  private NoiseCache noiseCache = null;
+
+  public GenerationSettings(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.seed = Long.getLong(SEED_PROPERTY, new Random().nextLong());
+  }
+
+  public GenerationSettings setSeed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public GenerationSettings setOctaves(int octaves) {
+    this.octaves = octaves;
+    return this;
+  }
+
+  public GenerationSettings setFeatureSize(double featureSize) {
+    this.featureSize = featureSize;
+    return this;
+  }
+
+  public GenerationSettings setWaterLevel(double waterLevel) {
+    this.waterLevel = waterLevel;
+    return this;
+  }
+
+  public GenerationSettings setCoastLevel(double coastLevel) {
+    this.coastLevel = coastLevel;
+    return this;
+  }
+
+  public GenerationSettings setDesertLevel(double desertLevel) {
+    this.desertLevel = desertLevel;
+    return this;
+  }
+
+  public GenerationSettings setHillLevel(double hillLevel) {
+    this.hillLevel = hillLevel;
+    return this;
+  }
+
+  public GenerationSettings setPeakLevel(double peakLevel) {
+    this.peakLevel = peakLevel;
+    return this;
+  }
+
+  public GenerationSettings setIceTemperature(double iceTemperature) {
+    this.iceTemperature = iceTemperature;
+    return this;
+  }
+
+  public GenerationSettings setPeakTundraTemperature(double peakTundraTemperature) {
+    this.peakTundraTemperature = peakTundraTemperature;
+    return this;
+  }
+
+  public GenerationSettings setPeakMountainTemperature(double peakMountainTemperature) {
+    this.peakMountainTemperature = peakMountainTemperature;
+    return this;
+  }
+
+  public GenerationSettings setHillPlainsTemperature(double hillPlainsTemperature) {
+    this.hillPlainsTemperature = hillPlainsTemperature;
+    return this;
+  }
+
+  public GenerationSettings setHillWoodsTemperature(double hillWoodsTemperature) {
+    this.hillWoodsTemperature = hillWoodsTemperature;
+    return this;
+  }
+
+  public GenerationSettings setHillRainforestTemperature(double hillRainforestTemperature) {
+    this.hillRainforestTemperature = hillRainforestTemperature;
+    return this;
+  }
+
+  public GenerationSettings setMarshTemperature(double marshTemperature) {
+    this.marshTemperature = marshTemperature;
+    return this;
+  }
+
+  public GenerationSettings setWoodsTemperature(double woodsTemperature) {
+    this.woodsTemperature = woodsTemperature;
+    return this;
+  }
+
+  public GenerationSettings setNoiseCache(NoiseCache noiseCache) {
+    this.noiseCache = noiseCache;
+    return this;
+  }
+
+  public int getWidth() {
+    return this.width;
+  }
+
+  public int getHeight() {
+    return this.height;
+  }
+
+  public long getSeed() {
+    return this.seed;
+  }
+
+  public int getOctaves() {
+    return this.octaves;
+  }
+
+  public double getFeatureSize() {
+    return this.featureSize;
+  }
+
+  public double getWaterLevel() {
+    return this.waterLevel;
+  }
+
+  public double getCoastLevel() {
+    return this.coastLevel;
+  }
+
+  public double getDesertLevel() {
+    return this.desertLevel;
+  }
+
+  public double getHillLevel() {
+    return this.hillLevel;
+  }
+
+  public double getPeakLevel() {
+    return this.peakLevel;
+  }
+
+  public double getIceTemperature() {
+    return this.iceTemperature;
+  }
+
+  public double getPeakTundraTemperature() {
+    return this.peakTundraTemperature;
+  }
+
+  public double getPeakMountainTemperature() {
+    return this.peakMountainTemperature;
+  }
+
+  public double getHillPlainsTemperature() {
+    return this.hillPlainsTemperature;
+  }
+
+  public double getHillWoodsTemperature() {
+    return this.hillWoodsTemperature;
+  }
+
+  public double getHillRainforestTemperature() {
+    return this.hillRainforestTemperature;
+  }
+
+  public double getMarshTemperature() {
+    return this.marshTemperature;
+  }
+
+  public double getWoodsTemperature() {
+    return this.woodsTemperature;
+  }
+
+  public NoiseCache getNoiseCache() {
+    return this.noiseCache;
+  }
+}
@@ -5,21 +5,25 @@ public class Noise {
   private static final double STRETCH_CONSTANT_2D = -0.211324865405187; // this is  = 1 / sqrt(2) / 2;
   private static final double SQUISH_CONSTANT_2D = 0.366025403784439; // this is = Math.sqrt(3)-1 / 2;
   private static final double NORM_CONSTANT_2D = 47;
-  private static final double REDISTRIBUTION_FACTOR = 4.0;
 
-  private short[] perm;
+  private final long seed;
+  private final short[] perm;
+  // perm[i] & 0x0E: the gradient each permuted value selects, so extrapolate skips the mask
+  private final short[] permGradIndex;
 
   // Gradients for 2D. They approximate the directions to the
   // vertices of an octagon from the center.
-  private static byte[] gradients2D =
-      new byte[] {5, 2, 2, 5, -5, 2, -2, 5, 5, -2, 2, -5, -5, -2, -2, -5,};
+  private static final double[] gradients2D =
+      new double[] {5, 2, 2, 5, -5, 2, -2, 5, 5, -2, 2, -5, -5, -2, -2, -5,};
 
   // Initializes the class using a permutation array generated from a 64-bit seed.
   // Generates a proper permutation (i.e. doesn't merely perform N successive pair swaps on a base
   // array)
   // Uses a simple 64-bit LCG.
   public Noise(long seed) {
+    this.seed = seed;
     perm = new short[256];
+    permGradIndex = new short[256];
     short[] source = new short[256];
     for (short i = 0; i < 256; i++)
       source[i] = i;
@@ -32,6 +36,7 @@ public class Noise {
       if (r < 0)
         r += (i + 1);
       perm[i] = source[r];
+      permGradIndex[i] = (short) (perm[i] & 0x0E);
       source[r] = source[i];
     }
   }
@@ -62,6 +67,104 @@ public class Noise {
     }
     return scale(v);
   }
+
+  /*
+   * Fills out[0..count) with noise1 at ((x0 + i) / cellSize, y / cellSize), the same values as
+   * calling it once per sample. The row is summed first and then scaled in a separate pass, a
+   * plain loop over the array that the JIT can vectorise. With a cache, the octaves are read from
+   * its tiles instead of being evaluated.
+   */
+  public void noise1Row(double[] out, int x0, int y, int count, double cellSize, int octaves,
+      NoiseCache cache) {
+    octaveSum(out, x0, y, count, cellSize, octaves, cache);
+    for (int i = 0; i < count; i++)
+      out[i] = redistribute(scale(out[i]));
+  }
+
+  public void noise1Row(double[] out, int x0, int y, int count, double cellSize, int octaves) {
+    noise1Row(out, x0, y, count, cellSize, octaves, null);
+  }
+
+  // As noise1Row, for noise2
+  public void noise2Row(double[] out, int x0, int y, int count, double cellSize, int octaves,
+      NoiseCache cache) {
+    octaveSum(out, x0, y, count, cellSize, octaves, cache);
+    for (int i = 0; i < count; i++)
+      out[i] = scale(out[i]);
+  }
+
+  public void noise2Row(double[] out, int x0, int y, int count, double cellSize, int octaves) {
+    noise2Row(out, x0, y, count, cellSize, octaves, null);
+  }
+
+  private void octaveSum(double[] out, int x0, int y, int count, double cellSize, int octaves,
+      NoiseCache cache) {
+    if (cache != null) {
+      cachedOctaveSum(out, x0, y, count, cellSize, octaves, cache);
+      return;
+    }
+
+    double ny = y / cellSize;
+    for (int i = 0; i < count; i++) {
+      double nx = (x0 + i) / cellSize;
+      double freq = 1.0;
+      double e = 1.0;
+      double v = 0.0;
+      for (int o = 0; o < octaves; o++) {
+        v += e * eval(freq * nx, freq * ny);
+
+        freq *= 2.0;
+        e = 1.0 / freq;
+      }
+      out[i] = v;
+    }
+  }
+
+  // Adds the octaves up in the same order as octaveSum, so the sums are bit-for-bit the same
+  private void cachedOctaveSum(double[] out, int x0, int y, int count, double cellSize,
+      int octaves, NoiseCache cache) {
+    int size = NoiseCache.TILE_SIZE;
+    int ty = Math.floorDiv(y, size);
+    int rowOffset = (y - ty * size) * size;
+    for (int i = 0; i < count; i++)
+      out[i] = 0.0;
+
+    double freq = 1.0;
+    double e = 1.0;
+    for (int o = 0; o < octaves; o++) {
+      int i = 0;
+      while (i < count) {
+        int tx = Math.floorDiv(x0 + i, size);
+        int col = x0 + i - tx * size;
+        int n = Math.min(size - col, count - i);
+        double[] tile = cache.tile(this, cellSize, o, tx, ty);
+        for (int j = 0; j < n; j++)
+          out[i + j] += e * tile[rowOffset + col + j];
+        i += n;
+      }
+
+      freq *= 2.0;
+      e = 1.0 / freq;
+    }
+  }
+
+  // Fills out with one octave of unweighted noise over a cols x rows block starting at (x0, y0)
+  void octaveBlock(double[] out, int x0, int y0, int cols, int rows, double cellSize, int octave) {
+    double freq = 1.0;
+    for (int o = 0; o < octave; o++)
+      freq *= 2.0;
+
+    for (int r = 0; r < rows; r++) {
+      double ny = (y0 + r) / cellSize;
+      for (int c = 0; c < cols; c++)
+        out[r * cols + c] = eval(freq * ((x0 + c) / cellSize), freq * ny);
+    }
+  }
+
+  public long getSeed() {
+    return this.seed;
+  }
+
   /*
   private double manhattanDistance(double x, double y, double w, double h) {
     double cx = w / 2;
@@ -85,8 +188,10 @@ public class Noise {
     return (x / 2.0) + 0.5;
   }
 
+  // x^4, as two multiplies rather than Math.pow
   private double redistribute(double x) {
-    return Math.pow(x, REDISTRIBUTION_FACTOR);
+    double x2 = x * x;
+    return x2 * x2;
   }
 
   // private double fade(double x) {
@@ -210,7 +315,7 @@ public class Noise {
   }
 
   private double extrapolate(int xsb, int ysb, double dx, double dy) {
-    int index = perm[(perm[xsb & 0xFF] + ysb) & 0xFF] & 0x0E;
+    int index = permGradIndex[(perm[xsb & 0xFF] + ysb) & 0xFF];
     return gradients2D[index] * dx + gradients2D[index + 1] * dy;
   }
 
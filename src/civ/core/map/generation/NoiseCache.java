@@ -0,0 +1,101 @@
+package civ.core.map.generation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Raw noise samples, one octave of one Noise at a time, in TILE_SIZE x TILE_SIZE tiles. Holds at
+ * most maxTiles tiles and drops the least recently used first. The octave sums are rebuilt from
+ * the tiles in the same order Noise adds them, so cached and uncached maps are identical, and
+ * generating again with different thresholds, or fewer octaves, evaluates no noise at all.
+ */
+public class NoiseCache {
+  public static final int TILE_SIZE = 32;
+  public static final int DEFAULT_MAX_TILES = 1024; // 8 MB of samples
+
+  private final int maxTiles;
+  private final Map<Key, double[]> tiles;
+
+  public NoiseCache() {
+    this(DEFAULT_MAX_TILES);
+  }
+
+  public NoiseCache(final int maxTiles) {
+    this.maxTiles = maxTiles;
+    this.tiles = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+        return size() > NoiseCache.this.maxTiles;
+      }
+    };
+  }
+
+  // The samples of tile (tx, ty) for one octave of noise, row by row
+  double[] tile(Noise noise, double cellSize, int octave, int tx, int ty) {
+    Key key = new Key(noise.getSeed(), cellSize, octave, tx, ty);
+    synchronized (tiles) {
+      double[] tile = tiles.get(key);
+      if (tile != null)
+        return tile;
+    }
+
+    // Evaluated outside the lock so generation threads don't queue behind each other. Two threads
+    // may both fill the same tile, but they fill it with the same values
+    double[] tile = new double[TILE_SIZE * TILE_SIZE];
+    noise.octaveBlock(tile, tx * TILE_SIZE, ty * TILE_SIZE, TILE_SIZE, TILE_SIZE, cellSize, octave);
+    synchronized (tiles) {
+      tiles.put(key, tile);
+    }
+    return tile;
+  }
+
+  public int size() {
+    synchronized (tiles) {
+      return tiles.size();
+    }
+  }
+
+  public int getMaxTiles() {
+    return this.maxTiles;
+  }
+
+  public void clear() {
+    synchronized (tiles) {
+      tiles.clear();
+    }
+  }
+
+  private static final class Key {
+    private final long seed;
+    private final double cellSize;
+    private final int octave;
+    private final int tx;
+    private final int ty;
+
+    Key(long seed, double cellSize, int octave, int tx, int ty) {
+      this.seed = seed;
+      this.cellSize = cellSize;
+      this.octave = octave;
+      this.tx = tx;
+      this.ty = ty;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key))
+        return false;
+      Key k = (Key) o;
+      return seed == k.seed && Double.compare(cellSize, k.cellSize) == 0 && octave == k.octave
+          && tx == k.tx && ty == k.ty;
+    }
+
+    @Override
+    public int hashCode() {
+      int h = Long.hashCode(seed);
+      h = 31 * h + Double.hashCode(cellSize);
+      h = 31 * h + octave;
+      h = 31 * h + tx;
+      return 31 * h + ty;
+    }
+  }
+}
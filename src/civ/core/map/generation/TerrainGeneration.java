@@ -1,17 +1,22 @@
 package civ.core.map.generation;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import civ.core.data.hex.Hex;
-import civ.core.data.map.HexMap;
+import civ.core.event.jfr.TerrainGenerationEvent;
 import civ.core.map.terrain.Feature;
 import civ.core.map.terrain.Landscape;
 
 public class TerrainGeneration {
-  private final int octaves = 2;
-  private final double featureSize = 15.0D;
-  private final Random rnd;
+  private final GenerationSettings settings;
+  private final int octaves;
+  private final double featureSize;
+  private final NoiseCache noiseCache;
+
+  // Maps smaller than this are quicker to generate on the calling thread
+  private static final int PARALLEL_THRESHOLD = 64 * 64;
+  private static final int BAND_ROWS = 8;
 
   private int width;
   private int height;
@@ -22,85 +27,153 @@ public class TerrainGeneration {
   private Noise temperature;
 
   public TerrainGeneration(int hexWidth, int hexHeight) {
-    rnd = new Random();
+    this(new GenerationSettings(hexWidth, hexHeight));
+  }
 
-    this.hexWidth = hexWidth;
-    this.hexHeight = hexHeight;
+  public TerrainGeneration(GenerationSettings settings) {
+    this.settings = settings;
+    this.octaves = settings.getOctaves();
+    this.featureSize = settings.getFeatureSize();
+    this.noiseCache = settings.getNoiseCache();
+
+    this.hexWidth = settings.getWidth();
+    this.hexHeight = settings.getHeight();
     this.width = this.hexWidth;
     this.height = this.hexHeight;
 
+    // Both noise seeds come from the one map seed, so the seed alone reproduces the map
+    Random rnd = new Random(settings.getSeed());
     elevation = new Noise(rnd.nextLong());
     temperature = new Noise(rnd.nextLong());
   }
 
-  public Map<Integer, Hex> generateMap() {
-    Map<Integer, Hex> map = new HashMap<>();
-    double[][] eHMap = new double[hexWidth][hexHeight];
-    double[][] eTMap = new double[hexWidth][hexHeight];
-    double[] e = generateElevation();
-    double[] t = generateTemperature();
+  public Hex[] generateMap() {
+    TerrainGenerationEvent event = new TerrainGenerationEvent();
+    event.begin();
 
-    for (int i = 0; i < e.length; i++) { // Calculate an average noise value for a section of the
-                                         // map
-      int x = i % hexWidth;
-      int y = i / hexWidth;
-      eHMap[x][y] = e[i];
-      eTMap[x][y] = t[i];
+    Hex[] map = generate(hexWidth * hexHeight >= PARALLEL_THRESHOLD);
 
-    }
+    event.width = hexWidth;
+    event.height = hexHeight;
+    event.commit();
+    return map;
+  }
 
+  /*
+   * Every tile depends only on its own position and the two noise seeds, so bands of rows can be
+   * generated in any order, on any thread, and still give the same map.
+   */
+  private Hex[] generate(boolean parallel) {
+    Hex[] map = new Hex[hexWidth * hexHeight];
+
+    RowBand all = new RowBand(map, 0, hexHeight);
+    if (parallel)
+      ForkJoinPool.commonPool().invoke(all);
+    else
+      all.generateRows();
+    return map;
+  }
+
+  /*
+   * The cols x rows block of tiles starting at offset column colStart and row rowStart, row by
+   * row. The tiles are the same as the ones generateMap gives for that block.
+   */
+  public Hex[] generateRegion(int colStart, int rowStart, int cols, int rows) {
+    Hex[] region = new Hex[cols * rows];
+    double[] e = new double[cols];
+    double[] t = new double[cols];
+    for (int y = rowStart; y < rowStart + rows; y++)
+      generateRow(y, colStart, cols, e, t, region, (y - rowStart) * cols);
+    return region;
+  }
+
+  // Writes cols tiles of row y, from column colStart, into out starting at offset
+  private void generateRow(int y, int colStart, int cols, double[] e, double[] t, Hex[] out,
+      int offset) {
+    generateElevation(e, y, colStart, cols);
+    generateTemperature(t, y, colStart, cols);
 
     // Decide the terrain type + features for the hex
-    for (int r = 0, y = 0; r < this.hexHeight; r++, y++) { // y
-      int rOff = (r + 1) >> 1;
-      for (int q = -rOff, x = 0; q < this.hexWidth - rOff; q++, x++) { // x
-        Hex n = new Hex(q, r, -q - r);
-        Hex nextHex = generateHexTerrain(eHMap[x][y], eTMap[x][y], q, r, -q - r);
-        map.put(HexMap.hash(n), nextHex);
+    int rOff = (y + 1) >> 1;
+    for (int i = 0; i < cols; i++) {
+      int q = colStart + i - rOff;
+      out[offset + i] = generateHexTerrain(e[i], t[i], q, y, -q - y);
+    }
+  }
+
+  public GenerationSettings getSettings() {
+    return this.settings;
+  }
+
+  private class RowBand extends RecursiveAction {
+    private static final long serialVersionUID = 2876412405125390487L;
+
+    private final Hex[] map;
+    private final int rowStart;
+    private final int rowEnd;
+
+    RowBand(Hex[] map, int rowStart, int rowEnd) {
+      this.map = map;
+      this.rowStart = rowStart;
+      this.rowEnd = rowEnd;
+    }
+
+    @Override
+    protected void compute() {
+      if (rowEnd - rowStart <= BAND_ROWS) {
+        generateRows();
+      } else {
+        int mid = (rowStart + rowEnd) >>> 1;
+        invokeAll(new RowBand(map, rowStart, mid), new RowBand(map, mid, rowEnd));
       }
     }
 
-    return map;
+    void generateRows() {
+      double[] e = new double[hexWidth];
+      double[] t = new double[hexWidth];
+      for (int y = rowStart; y < rowEnd; y++)
+        generateRow(y, 0, hexWidth, e, t, map, y * hexWidth);
+    }
   }
 
   private Hex generateHexTerrain(double e, double t, int q, int r, int s) {
     Hex h = null;
-    if (e < 0.0005) { // Water
-      if (t < 0.05) { // Ice
+    if (e < settings.getWaterLevel()) { // Water
+      if (t < settings.getIceTemperature()) { // Ice
         h = new Hex(Landscape.LAKE, q, r, s);
         h.addFeature(Feature.ICE);
       } else { // Lake
         h = new Hex(Landscape.LAKE, q, r, s);
       }
-    } else if (e < 0.001) { // Coast
+    } else if (e < settings.getCoastLevel()) { // Coast
       h = new Hex(Landscape.COAST, q, r, s);
     } else { // Land
-      if (e > 0.80) {
-        if (t < 0.8) { // Tundra
+      if (e > settings.getPeakLevel()) {
+        if (t < settings.getPeakTundraTemperature()) { // Tundra
           h = new Hex(Landscape.TUNDRA, q, r, s);
-        } else if (t < 0.5) { // Snow + Mountain
+        } else if (t < settings.getPeakMountainTemperature()) { // Snow + Mountain
           h = new Hex(Landscape.SNOW, q, r, s);
           h.addFeature(Feature.MOUNTAINS);
         } else { // Snow
           h = new Hex(Landscape.SNOW, q, r, s);
         }
-      } else if (e > 0.50) {
-        if (t < 0.3) { // Plains
+      } else if (e > settings.getHillLevel()) {
+        if (t < settings.getHillPlainsTemperature()) { // Plains
           h = new Hex(Landscape.PLAINS, q, r, s);
-        } else if (t < 0.6) { // Woods + grassland
+        } else if (t < settings.getHillWoodsTemperature()) { // Woods + grassland
           h = new Hex(Landscape.GRASSLAND, q, r, s);
           h.addFeature(Feature.WOODS);
-        } else if (t < 0.8) { // Rainforest + grassland
+        } else if (t < settings.getHillRainforestTemperature()) { // Rainforest + grassland
           h = new Hex(Landscape.GRASSLAND, q, r, s);
           h.addFeature(Feature.RAINFOREST);
         } else {
           h = new Hex(Landscape.TUNDRA, q, r, s);
         }
-      } else if (e > 0.01) { // Grassland
+      } else if (e > settings.getDesertLevel()) { // Grassland
         h = new Hex(Landscape.GRASSLAND, q, r, s);
-        if (t < 0.3) {
+        if (t < settings.getMarshTemperature()) {
           h.addFeature(Feature.MARSH); // Grassland + marsh
-        } else if (t < 0.5) { // Grassland + woods
+        } else if (t < settings.getWoodsTemperature()) { // Grassland + woods
           h.addFeature(Feature.WOODS);
         } else { // Grassland + rainforest
           h.addFeature(Feature.RAINFOREST);
@@ -112,32 +185,11 @@ public class TerrainGeneration {
     return h;
   }
 
-  private double[] generateElevation() {
-    double[] e = new double[width * height];
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        double nx = x / featureSize;
-        double ny = y / featureSize;
-        double e1 =
-            elevation.noise1(nx, ny, width / featureSize, height / featureSize, octaves, true);
-        int i = (x + y * width);
-        e[i] = e1;
-      }
-    }
-    return e;
+  private void generateElevation(double[] e, int y, int colStart, int cols) {
+    elevation.noise1Row(e, colStart, y, cols, featureSize, octaves, noiseCache);
   }
 
-  private double[] generateTemperature() {
-    double[] t = new double[width * height];
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        double nx = x / featureSize;
-        double ny = y / featureSize;
-        double t1 = temperature.noise2(nx, ny, octaves);
-        int i = (x + y * width);
-        t[i] = t1;
-      }
-    }
-    return t;
+  private void generateTemperature(double[] t, int y, int colStart, int cols) {
+    temperature.noise2Row(t, colStart, y, cols, featureSize, octaves, noiseCache);
   }
 }
@@ -1,6 +1,7 @@
 package civ.core.unit;
 
 import static civ.core.instance.IData.*;
+import static civ.core.instance.IDisplay.ui;
 import civ.core.data.hex.HexCoordinate;
 import civ.core.data.utils.GFXUtils;
 import civ.core.display.menu.UnitMenu;
@@ -1,9 +1,12 @@
 package civ.core.unit;
 
 import static civ.core.instance.IData.*;
+import static civ.core.instance.IDisplay.ui;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import civ.core.ai.FlowField;
+import civ.core.ai.MovementRange;
 import civ.core.data.Point;
 import civ.core.data.Producable;
 import civ.core.data.hex.Hex;
@@ -55,16 +58,12 @@ public class Unit extends IUnit implements Producable {
     // Get the map hex for units
     Hex hex = hexMap.getHex(curPos);
 
-    // Set the units in the hexes
+    // Set the units in the hexes. Occupancy lives on the map's own hex, and isn't a terrain change
+    // for the map's tile listeners
     hex.addNewUnit(this, isMilitary);
 
-    // Update the hexes in the map
-    hexMap.setHex(curPos, hex);
-
     // Add units to the civ
-    BaseCivilization c1 = civs.get(0);
-    c1.addUnit(this);
-    civs.set(0, c1);
+    civOwner.addUnit(this);
   }
 
   public void deleteFromMapAndCiv() {
@@ -74,13 +73,8 @@ public class Unit extends IUnit implements Producable {
     // Set the units in the hexes
     hex.replaceUnit(null, isMilitary);
 
-    // Update the hexes in the map
-    hexMap.setHex(curPos, hex);
-
-    // Add units to the civ
-    BaseCivilization c1 = civs.get(0);
-    c1.deleteUnit(this);
-    civs.set(0, c1);
+    // Remove units from the civ
+    civOwner.deleteUnit(this);
   }
 
   public void deleteBySelling() {
@@ -210,6 +204,25 @@ public class Unit extends IUnit implements Producable {
     return curPos != null && HexMap.rangesIntersect(h, curPos, 1);
   }
 
+  /*
+   * Moves the unit towards the field's target one hex at a time while it has movement left,
+   * going round hexes where another unit of its kind stands. Each hex costs one movement, the
+   * step cost the pathfinders use. Returns the number of hexes moved.
+   */
+  public int moveAlong(FlowField field) {
+    int moved = 0;
+    HexCoordinate next = field.nextStep(curPos, isMilitary);
+    while (next != null && movementPotential >= 1D) {
+      hexMap.getHex(curPos).replaceUnit(null, isMilitary);
+      hexMap.getHex(next).addNewUnit(this, isMilitary);
+      curPos = next;
+      decreaseMovement(1D);
+      moved++;
+      next = field.nextStep(curPos, isMilitary);
+    }
+    return moved;
+  }
+
   public void nextTurn() {
     //Refresh all the units movement
     resetMovementTemp();
@@ -262,14 +275,8 @@ public class Unit extends IUnit implements Producable {
     fromHex.resetUnits();
     toHex.replaceUnit(u, tempUnit.getIsMilitary());
 
-    // Move the unit on the map
-    hexMap.setHex(toHex);
-    hexMap.setHex(fromHex);
-
-    // Add units to the civ
-    BaseCivilization c1 = civs.get(0);
-    c1.replaceUnit(u, tempUnit);
-    civs.set(0, c1);
+    // Update the unit in its civ
+    u.getOwner().replaceUnit(u, tempUnit);
   }
 
   private void swapUnitOnMap(Hex fromHex, Hex toHex, Unit currentFromUnit, Unit currentToUnit,
@@ -291,24 +298,17 @@ public class Unit extends IUnit implements Producable {
     fromHex.replaceUnit(tempToUnit, currentToUnit.getIsMilitary());
     toHex.replaceUnit(tempFromUnit, currentFromUnit.getIsMilitary());
 
-    // Move the units on the map
-    hexMap.setHex(toHex);
-    hexMap.setHex(fromHex);
-
-    // Add units to the civ
-    BaseCivilization c1 = civs.get(0);
-    c1.replaceUnit(currentFromUnit, tempFromUnit);
-    c1.replaceUnit(currentToUnit, tempToUnit);
-    civs.set(0, c1);
+    // Update the units in their civs
+    currentFromUnit.getOwner().replaceUnit(currentFromUnit, tempFromUnit);
+    currentToUnit.getOwner().replaceUnit(currentToUnit, tempToUnit);
   }
 
   private boolean sameOwner(Unit fromU, Unit toU) {
     return fromU.getOwner().sameCivilization(toU.getOwner().getID());
   }
 
-  public List<PathHex> validUnitMove(List<HexCoordinate> path) {
+  public List<PathHex> validUnitMove(List<HexCoordinate> path, MovementRange range) {
     List<PathHex> finalPath = new ArrayList<>();
-    Hex currentHex = hexMap.getHex(ui.getFocusHex());
 
     boolean unitBlocking = false;
     double currentPathCost = 0D;
@@ -316,12 +316,14 @@ public class Unit extends IUnit implements Producable {
       HexCoordinate h = path.get(i);
       Hex mapHex = hexMap.getHex(h);
 
-      double hexCost = currentHex.getMovementTotal();
-      boolean unitMovementRemaining = currentUnit.ableToMove(hexCost);
-      boolean done = false;
-
+      double hexCost = mapHex.getMovementTotal();
       currentPathCost += hexCost;
 
+      // The range only says some route reaches the hex, the cost along this path decides the step
+      boolean unitMovementRemaining =
+          range.canReach(h) && currentPathCost <= currentUnit.getMovementPotential();
+      boolean done = false;
+
       if (unitMovementRemaining) {
         if (!unitBlocking) {
           for (Unit u : mapHex.getUnits()) { // Check for a unit blocking the path